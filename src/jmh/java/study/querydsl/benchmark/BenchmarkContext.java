@@ -0,0 +1,63 @@
+package study.querydsl.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.QuerydslApplication;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * application context for benchmarks : embedded in-memory H2, no web server, no sql logging
+ * each jmh fork is a new jvm, so every @Param combination gets its own database
+ */
+public final class BenchmarkContext {
+
+	private static final int BATCH = 10_000;
+
+	private BenchmarkContext() {
+	}
+
+	public static ConfigurableApplicationContext start(String... args) {
+		List<String> arguments = new ArrayList<>(Arrays.asList(
+				"--spring.profiles.active=benchmark",
+				"--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+				"--spring.jpa.properties.hibernate.format_sql=false",
+				"--spring.jpa.properties.hibernate.use_sql_comments=false",
+				"--logging.level.root=warn",
+				"--logging.level.org.hibernate.SQL=warn",
+				"--member.sql-trace.mode=off"));
+		for (String arg : args) {
+			// same option twice would be read as "first,second"
+			arguments.removeIf(argument -> argument.startsWith(arg.substring(0, arg.indexOf('=') + 1)));
+			arguments.add(arg);
+		}
+		return new SpringApplicationBuilder(QuerydslApplication.class)
+				.web(WebApplicationType.NONE)
+				.run(arguments.toArray(new String[0]));
+	}
+
+	/** plain jdbc batches : seeding is not what's measured */
+	public static void seed(ApplicationContext context, int members, int teams) {
+		JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+
+		List<Object[]> teamRows = new ArrayList<>(teams);
+		for (int i = 1; i <= teams; i++) {
+			teamRows.add(new Object[]{(long) i, "team" + i});
+		}
+		jdbc.batchUpdate("insert into team (id, name) values (?, ?)", teamRows);
+
+		List<Object[]> memberRows = new ArrayList<>(BATCH);
+		for (int i = 0; i < members; i++) {
+			memberRows.add(new Object[]{(long) teams + 1 + i, "member" + i, i % 100, (long) 1 + i % teams});
+			if (memberRows.size() == BATCH || i == members - 1) {
+				jdbc.batchUpdate("insert into member (id, username, age, team_id) values (?, ?, ?, ?)", memberRows);
+				memberRows.clear();
+			}
+		}
+	}
+}
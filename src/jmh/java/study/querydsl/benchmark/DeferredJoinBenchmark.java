@@ -0,0 +1,71 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * searchPage at a shallow and a deep page, offset over full rows vs deferred join (member.search.deferred-join)
+ * count is cached, so only the content queries are measured
+ * the page moves a little every invocation : H2 returns the previous result of an identical query without running it
+ *
+ * ./gradlew jmh -Pjmh.includes=DeferredJoinBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DeferredJoinBenchmark {
+
+	@Param({"1000000"})
+	private int members;
+
+	@Param({"10", "20000"})
+	private int page;
+
+	@Param({"false", "true"})
+	private boolean deferredJoin;
+
+	private ConfigurableApplicationContext context;
+	private MemberRepository memberRepository;
+
+	private MemberSearchCondition condition;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContext.start(
+				"--member.search.deferred-join=" + deferredJoin,
+				"--member.search.count-cache.ttl=10m");
+		BenchmarkContext.seed(context, members, 999);
+		memberRepository = context.getBean(MemberRepository.class);
+
+		condition = new MemberSearchCondition();
+		condition.setAgeGoe(10);
+		condition.setAgeLoe(80);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Page<MemberTeamDto> searchPage() {
+		return memberRepository.searchPage(condition, PageRequest.of(page + next++ % 64, 20));
+	}
+}
@@ -0,0 +1,67 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.dto.CursorPage;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * searchKeyset page of 20 after a cursor near the start vs near the end of the (age, id) order
+ * with idx_member_age_id both seek to the cursor : the page costs the same at any depth
+ * the cursor moves a little every invocation : H2 returns the previous result of an identical query without running it
+ *
+ * ./gradlew jmh -Pjmh.includes=KeysetBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class KeysetBenchmark {
+
+	private static final int TEAMS = 999;
+
+	@Param({"1000000"})
+	private int members;
+
+	@Param({"0", "95"})
+	private int cursorAge;
+
+	private ConfigurableApplicationContext context;
+	private MemberRepository memberRepository;
+
+	private MemberSearchCondition condition;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContext.start();
+		BenchmarkContext.seed(context, members, TEAMS);
+		memberRepository = context.getBean(MemberRepository.class);
+		condition = new MemberSearchCondition();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	// seeded member i : age i % 100, id TEAMS + 1 + i
+	@Benchmark
+	public CursorPage<MemberTeamDto> searchKeyset() {
+		long id = TEAMS + 1 + cursorAge + 100L * (next++ % 64);
+		return memberRepository.searchKeyset(condition, new MemberCursor(cursorAge, id), 20);
+	}
+}
@@ -0,0 +1,77 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.repository.support.FastProjections;
+
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 100k rows through Projections.* vs FastProjections.* ( MemberDto : username, age )
+ * rows are already in memory : only newInstance, what querydsl does per result row, is measured
+ *
+ * ./gradlew jmh -Pjmh.includes=ProjectionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProjectionBenchmark {
+
+	private static final int ROWS = 100_000;
+
+	@Param({"bean", "fields", "constructor"})
+	private String projection;
+
+	private FactoryExpression<MemberDto> projections;
+	private FactoryExpression<MemberDto> fastProjections;
+	private Object[][] rows;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		switch (projection) {
+			case "bean":
+				projections = Projections.bean(MemberDto.class, member.username, member.age);
+				fastProjections = FastProjections.bean(MemberDto.class, member.username, member.age);
+				break;
+			case "fields":
+				projections = Projections.fields(MemberDto.class, member.username, member.age);
+				fastProjections = FastProjections.fields(MemberDto.class, member.username, member.age);
+				break;
+			default:
+				projections = Projections.constructor(MemberDto.class, member.username, member.age);
+				fastProjections = FastProjections.constructor(MemberDto.class, member.username, member.age);
+		}
+
+		rows = new Object[ROWS][];
+		for (int i = 0; i < ROWS; i++) {
+			rows[i] = new Object[]{"member" + i, i % 100};
+		}
+	}
+
+	@Benchmark
+	public void projections(Blackhole blackhole) {
+		for (Object[] row : rows) {
+			blackhole.consume(projections.newInstance(row));
+		}
+	}
+
+	@Benchmark
+	public void fastProjections(Blackhole blackhole) {
+		for (Object[] row : rows) {
+			blackhole.consume(fastProjections.newInstance(row));
+		}
+	}
+}
@@ -0,0 +1,195 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.engine.query.spi.HQLQueryPlan;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.MemberSearchTemplates;
+import study.querydsl.repository.support.QueryTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * cost of the three dynamic query strategies before anything reaches the database
+ * - predicate : BooleanBuilder (searchByBuilder) / where parameters (search) / single Predicate (QuerydslPredicateExecutor)
+ * - serialize : querydsl query -> JPQL
+ * - parse     : JPQL -> HQL AST -> SQL, bypassing hibernate's query plan cache
+ * - createQuery : what every search pays before execution, querydsl where parameters vs precompiled template
+ *
+ * ./gradlew jmh -Pjmh.includes=QueryBuildBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QueryBuildBenchmark {
+
+	private ConfigurableApplicationContext context;
+	private EntityManager em;
+	private JPAQueryFactory queryFactory;
+	private SessionFactoryImplementor sessionFactory;
+	private MemberSearchCondition condition;
+
+	private String builderJpql;
+	private String whereParamJpql;
+	private String predicateExecutorJpql;
+	private QueryTemplate<MemberTeamDto> template;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContext.start();
+		em = context.getBean(EntityManagerFactory.class).createEntityManager();
+		queryFactory = new JPAQueryFactory(em);
+		sessionFactory = context.getBean(EntityManagerFactory.class).unwrap(SessionFactoryImplementor.class);
+
+		condition = new MemberSearchCondition();
+		condition.setTeamName("teamB");
+		condition.setAgeGoe(20);
+		condition.setAgeLoe(40);
+
+		builderJpql = serializeBuilder();
+		whereParamJpql = serializeWhereParam();
+		predicateExecutorJpql = serializePredicateExecutor();
+		template = context.getBean(MemberSearchTemplates.class).template(condition);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		em.close();
+		context.close();
+	}
+
+	@Benchmark
+	public Predicate predicateBuilder() {
+		return builder(condition);
+	}
+
+	@Benchmark
+	public Predicate predicateWhereParam() {
+		return ExpressionUtils.allOf(whereParams(condition));
+	}
+
+	@Benchmark
+	public Predicate predicatePredicateExecutor() {
+		return single(condition);
+	}
+
+	@Benchmark
+	public String serializeBuilder() {
+		return dtoQuery().where(builder(condition)).toString();
+	}
+
+	@Benchmark
+	public String serializeWhereParam() {
+		return dtoQuery().where(whereParams(condition)).toString();
+	}
+
+	@Benchmark
+	public String serializePredicateExecutor() {
+		return queryFactory.selectFrom(member).where(single(condition)).toString();
+	}
+
+	@Benchmark
+	public HQLQueryPlan parseBuilder() {
+		return parse(builderJpql);
+	}
+
+	@Benchmark
+	public HQLQueryPlan parseWhereParam() {
+		return parse(whereParamJpql);
+	}
+
+	@Benchmark
+	public HQLQueryPlan parsePredicateExecutor() {
+		return parse(predicateExecutorJpql);
+	}
+
+	@Benchmark
+	public Query createQueryWhereParam() {
+		return dtoQuery().where(whereParams(condition)).createQuery();
+	}
+
+	@Benchmark
+	public Query createQueryTemplate() {
+		return template.createQuery(em,
+				condition.getUsername(), condition.getTeamName(), condition.getAgeGoe(), condition.getAgeLoe());
+	}
+
+	private HQLQueryPlan parse(String jpql) {
+		return new HQLQueryPlan(jpql, false, Collections.emptyMap(), sessionFactory);
+	}
+
+	private JPAQuery<MemberTeamDto> dtoQuery() {
+		return queryFactory
+				.select(new QMemberTeamDto(
+						member.id.as("memberId"),
+						member.username,
+						member.age,
+						team.id.as("teamId"),
+						team.name.as("teamName")))
+				.from(member)
+				.leftJoin(member.team, team);
+	}
+
+	// same as MemberJpaRepository.searchByBuilder
+	private static BooleanBuilder builder(MemberSearchCondition condition) {
+		BooleanBuilder builder = new BooleanBuilder();
+		if (hasText(condition.getUsername())) {
+			builder.and(member.username.eq(condition.getUsername()));
+		}
+		if (hasText(condition.getTeamName())) {
+			builder.and(team.name.eq(condition.getTeamName()));
+		}
+		if (condition.getAgeGoe() != null) {
+			builder.and(member.age.goe(condition.getAgeGoe()));
+		}
+		if (condition.getAgeLoe() != null) {
+			builder.and(member.age.loe(condition.getAgeLoe()));
+		}
+		return builder;
+	}
+
+	// same as MemberJpaRepository.search
+	private static Predicate[] whereParams(MemberSearchCondition condition) {
+		return new Predicate[]{
+				hasText(condition.getUsername()) ? member.username.eq(condition.getUsername()) : null,
+				hasText(condition.getTeamName()) ? team.name.eq(condition.getTeamName()) : null,
+				condition.getAgeGoe() != null ? member.age.goe(condition.getAgeGoe()) : null,
+				condition.getAgeLoe() != null ? member.age.loe(condition.getAgeLoe()) : null
+		};
+	}
+
+	// one Predicate for MemberRepository.findAll(Predicate) : team name through the association path
+	private static BooleanExpression single(MemberSearchCondition condition) {
+		return Expressions.allOf(
+				hasText(condition.getUsername()) ? member.username.eq(condition.getUsername()) : null,
+				hasText(condition.getTeamName()) ? member.team.name.eq(condition.getTeamName()) : null,
+				condition.getAgeGoe() != null ? member.age.goe(condition.getAgeGoe()) : null,
+				condition.getAgeLoe() != null ? member.age.loe(condition.getAgeLoe()) : null);
+	}
+}
@@ -0,0 +1,65 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * entity-returning query in a read-write vs a read-only transaction
+ * read-write : a loaded-state snapshot per entity and a dirty check of every entity on commit
+ * read-only  : no snapshots, flush mode MANUAL, nothing to check on commit
+ * heap : gc.alloc.rate.norm of the gc profiler, bytes allocated per operation
+ *
+ * ./gradlew jmh -Pjmh.includes=ReadOnlyQueryBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReadOnlyQueryBenchmark {
+
+	@Param({"10000"})
+	private int members;
+
+	@Param({"false", "true"})
+	private boolean readOnly;
+
+	private ConfigurableApplicationContext context;
+	private MemberJpaRepository memberJpaRepository;
+	private TransactionTemplate transaction;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContext.start();
+		BenchmarkContext.seed(context, members, 100);
+		memberJpaRepository = context.getBean(MemberJpaRepository.class);
+
+		// the repository joins this transaction as it is
+		transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		transaction.setReadOnly(readOnly);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<Member> findAll_Querydsl() {
+		return transaction.execute(status -> memberJpaRepository.findAll_Querydsl());
+	}
+}
@@ -0,0 +1,83 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * a dashboard page : 30 conditions ( one team and an age range each ) one query at a time vs searchBatch
+ * embedded H2 has no network round trip, so this is the lower bound of the difference
+ * age ranges move every invocation : H2 returns the previous result of an identical query without running it
+ *
+ * ./gradlew jmh -Pjmh.includes=SearchBatchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SearchBatchBenchmark {
+
+	@Param({"100000"})
+	private int members;
+
+	@Param({"30"})
+	private int conditionCount;
+
+	private ConfigurableApplicationContext context;
+	private MemberRepository memberRepository;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContext.start();
+		BenchmarkContext.seed(context, members, 999);
+		memberRepository = context.getBean(MemberRepository.class);
+	}
+
+	private List<MemberSearchCondition> conditions() {
+		int shift = next++ % 30;
+		List<MemberSearchCondition> conditions = new ArrayList<>(conditionCount);
+		for (int i = 0; i < conditionCount; i++) {
+			MemberSearchCondition condition = new MemberSearchCondition();
+			condition.setTeamName("team" + (1 + i * 31));
+			condition.setAgeGoe((i + shift) % 50);
+			condition.setAgeLoe((i + shift) % 50 + 20);
+			conditions.add(condition);
+		}
+		return conditions;
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<List<MemberTeamDto>> oneByOne() {
+		List<MemberSearchCondition> conditions = conditions();
+		List<List<MemberTeamDto>> result = new ArrayList<>(conditions.size());
+		for (MemberSearchCondition condition : conditions) {
+			result.add(memberRepository.search(condition));
+		}
+		return result;
+	}
+
+	@Benchmark
+	public List<List<MemberTeamDto>> searchBatch() {
+		return memberRepository.searchBatch(conditions());
+	}
+}
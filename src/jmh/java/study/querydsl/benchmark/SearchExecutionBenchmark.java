@@ -0,0 +1,109 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJdbcSearch;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberQueryRepository;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * full execution of the three dynamic query strategies against embedded H2
+ * the condition selects ~1% of the members ( one of 50 teams, 2 of 100 ages )
+ *
+ * ./gradlew jmh -Pjmh.includes=SearchExecutionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchExecutionBenchmark {
+
+	@Param({"1000", "100000", "1000000"})
+	private int members;
+
+	private ConfigurableApplicationContext context;
+	private MemberJpaRepository memberJpaRepository;
+	private MemberQueryRepository memberQueryRepository;
+	private MemberRepository memberRepository;
+	private MemberJdbcSearch memberJdbcSearch;
+	private TransactionTemplate readOnly;
+
+	private MemberSearchCondition condition;
+	private BooleanExpression predicate;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContext.start("--member.search.result-cache.maximum-rows=0"); // every strategy runs its query
+		BenchmarkContext.seed(context, members, 50);
+		memberJpaRepository = context.getBean(MemberJpaRepository.class);
+		memberQueryRepository = context.getBean(MemberQueryRepository.class);
+		memberRepository = context.getBean(MemberRepository.class);
+		memberJdbcSearch = context.getBean(MemberJdbcSearch.class);
+		readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		readOnly.setReadOnly(true);
+
+		condition = new MemberSearchCondition();
+		condition.setTeamName("team2");
+		condition.setAgeGoe(41);
+		condition.setAgeLoe(60);
+
+		predicate = Expressions.allOf(
+				member.team.name.eq(condition.getTeamName()),
+				member.age.goe(condition.getAgeGoe()),
+				member.age.loe(condition.getAgeLoe()));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<MemberTeamDto> builder() {
+		return memberJpaRepository.searchByBuilder(condition);
+	}
+
+	@Benchmark
+	public List<MemberTeamDto> whereParam() {
+		return memberJpaRepository.search(condition);
+	}
+
+	// same sql shape as whereParam on plain jdbc ( member.search.jdbc ) : no JPQL translation or hibernate result handling
+	// in the read-only transaction the repositories open, like whereParam
+	@Benchmark
+	public List<MemberTeamDto> whereParamJdbc() {
+		return readOnly.execute(status -> memberJdbcSearch.search(condition));
+	}
+
+	@Benchmark
+	public List<MemberTeamDto> whereParamQueryRepository() {
+		return memberQueryRepository.search(condition);
+	}
+
+	// entities instead of MemberTeamDto : what QuerydslPredicateExecutor returns
+	@Benchmark
+	public Iterable<Member> predicateExecutor() {
+		return memberRepository.findAll(predicate);
+	}
+}
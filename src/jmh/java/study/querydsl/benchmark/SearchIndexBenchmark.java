@@ -0,0 +1,104 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * search latency with and without the indexes declared on Member / Team ( @Table(indexes) )
+ * indexed=false drops them after the schema is created, same data otherwise
+ * the h2 plan of each filter is printed at setup : index scan vs table scan
+ *
+ * ./gradlew jmh -Pjmh.includes=SearchIndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SearchIndexBenchmark {
+
+	private static final String[] INDEXES = {"idx_member_username", "idx_member_team_age", "idx_team_name"};
+	private static final int TEAMS = 999; // not a multiple of 100 : every team gets all ages ( seed : age i % 100, team i % teams )
+
+	// same sql shapes as MemberSearchTemplates : inner join when team.name is filtered
+	private static final String LEFT_JOIN = "select m.id, m.username, m.age, t.id, t.name"
+			+ " from member m left outer join team t on m.team_id = t.id where ";
+	private static final String JOIN = "select m.id, m.username, m.age, t.id, t.name"
+			+ " from member m inner join team t on m.team_id = t.id where ";
+
+	@Param({"1000000"})
+	private int members;
+
+	@Param({"true", "false"})
+	private boolean indexed;
+
+	private ConfigurableApplicationContext context;
+	private MemberJpaRepository memberJpaRepository;
+
+	// h2 reuses the last result of an unchanged query with the same parameters, so every invocation binds new values
+	private final MemberSearchCondition condition = new MemberSearchCondition();
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContext.start();
+		JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+		if (!indexed) {
+			for (String index : INDEXES) {
+				jdbc.execute("drop index " + index);
+			}
+		}
+		BenchmarkContext.seed(context, members, TEAMS);
+		jdbc.execute("analyze");
+		memberJpaRepository = context.getBean(MemberJpaRepository.class);
+
+		explain(jdbc, "username", LEFT_JOIN + "m.username = 'member1'");
+		explain(jdbc, "teamName", JOIN + "t.name = 'team1'");
+		explain(jdbc, "teamName+age", JOIN + "t.name = 'team1' and m.age >= 20 and m.age <= 29");
+	}
+
+	private void explain(JdbcTemplate jdbc, String filter, String sql) {
+		String plan = jdbc.queryForObject("explain " + sql, String.class);
+		System.out.println("[indexed=" + indexed + "] " + filter + " :\n" + plan);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<MemberTeamDto> username() {
+		condition.setUsername("member" + (next++ % members));
+		return memberJpaRepository.search(condition);
+	}
+
+	@Benchmark
+	public List<MemberTeamDto> teamName() {
+		condition.setTeamName("team" + (1 + next++ % TEAMS));
+		return memberJpaRepository.search(condition);
+	}
+
+	// about a tenth of the team's members
+	@Benchmark
+	public List<MemberTeamDto> teamNameAge() {
+		condition.setTeamName("team" + (1 + next++ % TEAMS));
+		condition.setAgeGoe(20);
+		condition.setAgeLoe(29);
+		return memberJpaRepository.search(condition);
+	}
+}
@@ -0,0 +1,80 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * searchPage latency distribution (p50 / p99 in the sample time output)
+ * sequential count vs count on another connection (member.search.concurrent-count)
+ * page 10 needs the count, the short last page doesn't : the concurrent count has already started and runs for nothing
+ * count cache disabled, ageGoe rotates over 8 values : H2 returns the previous result of an identical query without running it
+ *
+ * ./gradlew jmh -Pjmh.includes=SearchPageBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SearchPageBenchmark {
+
+	@Param({"100000", "2000000"})
+	private int members;
+
+	@Param({"false", "true"})
+	private boolean concurrentCount;
+
+	@Param({"10", "last"})
+	private String page;
+
+	private ConfigurableApplicationContext context;
+	private MemberRepository memberRepository;
+
+	private final MemberSearchCondition[] conditions = new MemberSearchCondition[8];
+	private final Pageable[] pageables = new Pageable[8];
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContext.start(
+				"--member.search.concurrent-count=" + concurrentCount,
+				"--member.search.count-cache.ttl=0s");
+		BenchmarkContext.seed(context, members, 50);
+		memberRepository = context.getBean(MemberRepository.class);
+
+		// seeded member i : age i % 100
+		for (int i = 0; i < conditions.length; i++) {
+			conditions[i] = new MemberSearchCondition();
+			conditions[i].setAgeGoe(10 + 3 * i); // 71 - 3 * i ages : never a multiple of 3, the last page of 30 never full
+			conditions[i].setAgeLoe(80);
+			long total = (long) members / 100 * (71 - 3 * i);
+			pageables[i] = PageRequest.of("last".equals(page) ? (int) (total / 30) : 10, 30);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Page<MemberTeamDto> searchPage() {
+		int i = next++ & 7;
+		return memberRepository.searchPage(conditions[i], pageables[i]);
+	}
+}
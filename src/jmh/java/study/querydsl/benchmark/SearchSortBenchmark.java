@@ -0,0 +1,66 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * first pages of searchPage sorted by indexed keys ( username, age ) vs one no index backs ( teamName ), member.id tiebreaker
+ * an indexed key walks the index to the page, teamName sorts every member first
+ * count is cached, so only the content query is measured
+ * the page moves a little every invocation : H2 returns the previous result of an identical query without running it
+ *
+ * ./gradlew jmh -Pjmh.includes=SearchSortBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SearchSortBenchmark {
+
+	@Param({"1000000"})
+	private int members;
+
+	@Param({"username", "age", "teamName"})
+	private String sort;
+
+	private ConfigurableApplicationContext context;
+	private MemberRepository memberRepository;
+
+	private MemberSearchCondition condition;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContext.start("--member.search.count-cache.ttl=10m");
+		BenchmarkContext.seed(context, members, 999);
+		memberRepository = context.getBean(MemberRepository.class);
+
+		condition = new MemberSearchCondition();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Page<MemberTeamDto> searchPage() {
+		return memberRepository.searchPage(condition, PageRequest.of(next++ % 64, 20, Sort.by(sort)));
+	}
+}
@@ -0,0 +1,61 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * cost of member.sql-trace on a cheap statement : search by username ( index lookup, one row ) in its own transaction
+ * off : no proxy. sampled : 1 in 100 connections proxied. slow : every connection and statement call through a proxy
+ * the username rotates : H2 returns the previous result of an identical query without running it
+ *
+ * ./gradlew jmh -Pjmh.includes=SqlTraceBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SqlTraceBenchmark {
+
+	private static final int MEMBERS = 100_000;
+
+	@Param({"off", "sampled", "slow"})
+	private String mode;
+
+	private ConfigurableApplicationContext context;
+	private MemberRepository memberRepository;
+
+	private final MemberSearchCondition condition = new MemberSearchCondition();
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContext.start("--member.sql-trace.mode=" + mode);
+		BenchmarkContext.seed(context, MEMBERS, 50);
+		memberRepository = context.getBean(MemberRepository.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<MemberTeamDto> search() {
+		condition.setUsername("member" + (next++ % MEMBERS));
+		return memberRepository.search(condition);
+	}
+}
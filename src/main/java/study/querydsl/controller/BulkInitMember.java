@@ -0,0 +1,28 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+// InitMember for load tests : --spring.profiles.active=bulk
+@Profile("bulk")
+@Component
+@RequiredArgsConstructor
+public class BulkInitMember {
+
+	private final MemberBulkLoader memberBulkLoader;
+
+	@Value("${member.bulk-load.rows:1000000}")
+	private int rows;
+
+	@Value("${member.bulk-load.team-fan-out:1000}")
+	private int teamFanOut;
+
+	@PostConstruct
+	public void init() {
+		memberBulkLoader.load(rows, teamFanOut);
+	}
+}
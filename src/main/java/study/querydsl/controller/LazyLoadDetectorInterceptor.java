@@ -0,0 +1,44 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.querydsl.repository.support.LazyLoadDetector;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+// one LazyLoadDetector scope per request to MemberController
+@Component
+@RequiredArgsConstructor
+public class LazyLoadDetectorInterceptor implements AsyncHandlerInterceptor, WebMvcConfigurer {
+
+	private final LazyLoadDetector lazyLoadDetector;
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(this);
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (handler instanceof HandlerMethod && ((HandlerMethod) handler).getBeanType() == MemberController.class) {
+			lazyLoadDetector.begin(request.getMethod() + " " + request.getRequestURI());
+		}
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		lazyLoadDetector.end();
+	}
+
+	// streaming responses continue on another thread : the request thread's scope ends here
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		lazyLoadDetector.end();
+	}
+}
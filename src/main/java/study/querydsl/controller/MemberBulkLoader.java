@@ -0,0 +1,99 @@
+package study.querydsl.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * seeding for load tests : InitMember with jdbc batching
+ * - ids from pooled sequences ( one sequence call per allocationSize rows ) : identity ids would disable insert batching
+ * - hibernate.jdbc.batch_size inserts per round trip, ordered by table
+ * - flush and clear every batch so the persistence context stays small
+ *   ( team.members is inverse : new Member(.., team) queues the add, the lazy collection isn't loaded )
+ * - commit every commitInterval rows
+ */
+@Slf4j
+@Component
+public class MemberBulkLoader {
+
+	@PersistenceContext
+	private EntityManager em;
+
+	private final TransactionTemplate transactionTemplate;
+	private final int batchSize;
+	private final int commitInterval;
+
+	public MemberBulkLoader(TransactionTemplate transactionTemplate,
+							@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize,
+							@Value("${member.bulk-load.commit-interval:10000}") int commitInterval) {
+		this.transactionTemplate = transactionTemplate;
+		this.batchSize = batchSize;
+		this.commitInterval = commitInterval;
+	}
+
+	/** @return inserted rows ( members and teams ) per second */
+	public double load(int members, int teamFanOut) {
+		if (teamFanOut < 1) {
+			throw new IllegalArgumentException("team fan-out must be at least 1: " + teamFanOut);
+		}
+		long start = System.nanoTime();
+		int teams = (members + teamFanOut - 1) / teamFanOut;
+
+		List<Long> teamIds = transactionTemplate.execute(status -> {
+			List<Team> created = new ArrayList<>(teams);
+			for (int i = 0; i < teams; i++) {
+				Team team = new Team("team" + i);
+				em.persist(team);
+				created.add(team);
+				flushAndClear(i + 1);
+			}
+			em.flush();
+			em.clear();
+			return created.stream().map(Team::getId).collect(Collectors.toList());
+		});
+
+		for (int from = 0; from < members; from += commitInterval) {
+			int to = Math.min(from + commitInterval, members);
+			int first = from;
+			transactionTemplate.executeWithoutResult(status -> {
+				// consecutive members share a team : about one team lookup per batch
+				Map<Long, Team> teamById = new HashMap<>();
+				for (int i = first; i < to; i++) {
+					Team team = teamById.computeIfAbsent(teamIds.get(i / teamFanOut), id -> em.find(Team.class, id));
+					em.persist(new Member("member" + i, i % 100, team));
+					if (flushAndClear(i - first + 1)) {
+						teamById.clear(); // detached
+					}
+				}
+				em.flush();
+				em.clear();
+			});
+		}
+
+		double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+		double rowsPerSecond = (members + teams) / seconds;
+		log.info("bulk loaded {} members, {} teams in {} s : {} rows/s",
+				members, teams, String.format("%.1f", seconds), String.format("%.0f", rowsPerSecond));
+		return rowsPerSecond;
+	}
+
+	private boolean flushAndClear(int persisted) {
+		if (persisted % batchSize != 0) {
+			return false;
+		}
+		em.flush();
+		em.clear();
+		return true;
+	}
+}
@@ -1,16 +1,35 @@
 package study.querydsl.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.querydsl.dto.CursorPage;
+import study.querydsl.dto.InvalidSearchException;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.SliceResponse;
 import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberQueryRepository;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberSearchCoalescer;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 //@NoArgsConstructor(access = AccessLevel.PROTECTED )
@@ -18,17 +37,85 @@ import java.util.List;
 public class MemberController {
 
 	private final MemberJpaRepository memberJpaRepository;
+	private final MemberQueryRepository memberQueryRepository;
 	private final MemberRepository memberRepository;
+	private final MemberSearchCoalescer memberSearchCoalescer;
+	private final ObjectMapper objectMapper;
 
 	@GetMapping("/v1/members")
 	public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
-		return memberJpaRepository.search(condition);
+		// return memberJpaRepository.search(condition);
+		return memberQueryRepository.search(condition); // result cache, concurrent misses for a condition load it once
+	}
+
+	// several conditions, one query : result i holds the members of condition i
+	// POST http://localhost:8080/v1/members/batch  [{"teamName":"teamA"}, {"ageGoe":30, "ageLoe":40}]
+	@PostMapping("/v1/members/batch")
+	public List<List<MemberTeamDto>> searchMemberBatch(@RequestBody List<MemberSearchCondition> conditions) {
+		return memberRepository.searchBatch(conditions);
+	}
+
+	// members by id, read in chunks of member.multi-get.batch-size ids : requested order, unknown ids left out
+	// POST http://localhost:8080/v1/members/by-ids  [3, 1, 2]
+	@PostMapping("/v1/members/by-ids")
+	public List<MemberTeamDto> findMembersByIds(@RequestBody List<Long> ids) {
+		return memberJpaRepository.findAllByIds(ids).stream()
+				.map(member -> new MemberTeamDto(
+						member.getId(),
+						member.getUsername(),
+						member.getAge(),
+						member.getTeam() != null ? member.getTeam().getId() : null,
+						member.getTeam() != null ? member.getTeam().getName() : null))
+				.collect(Collectors.toList());
+	}
+
+	// one json row per line, written while the rows are read : memory use doesn't grow with the result
+	// http://localhost:8080/v1/members/export?teamName=teamA
+	@GetMapping(value = "/v1/members/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public StreamingResponseBody exportMembers(MemberSearchCondition condition) {
+		return out -> {
+			JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+			generator.setRootValueSeparator(null);
+			memberJpaRepository.export(condition, row -> {
+				try {
+					generator.writeObject(row);
+					generator.writeRaw('\n');
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			generator.flush();
+		};
 	}
 
 	// http://localhost:8080/v2/members
 	// http://localhost:8080/v2/members?page=0&size=5
 	@GetMapping("/v2/members")
 	public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
-		return memberRepository.searchPage(condition, pageable);
+		// return memberRepository.searchPage(condition, pageable);
+		return memberSearchCoalescer.searchPage(condition, pageable); // identical concurrent requests share one search
+	}
+
+	// hasNext instead of total : no count query, no page metadata
+	// http://localhost:8080/v2/members/slice?page=0&size=5
+	@GetMapping("/v2/members/slice")
+	public SliceResponse<MemberTeamDto> searchMemberSlice(MemberSearchCondition condition, Pageable pageable) {
+		return new SliceResponse<>(memberRepository.searchSlice(condition, pageable));
+	}
+
+	// http://localhost:8080/v2/members/keyset?size=5
+	// http://localhost:8080/v2/members/keyset?size=5&cursor={nextCursor of previous page}
+	@GetMapping("/v2/members/keyset")
+	public CursorPage<MemberTeamDto> searchMemberKeyset(MemberSearchCondition condition,
+														@RequestParam(required = false) String cursor,
+														@RequestParam(defaultValue = "20") int size) {
+		MemberCursor memberCursor = cursor == null ? null : MemberCursor.decode(cursor);
+		return memberRepository.searchKeyset(condition, memberCursor, size);
+	}
+
+	// rejected request values ( sort key, cursor, batch size ... ) : 400 instead of 500
+	@ExceptionHandler(InvalidSearchException.class)
+	public ResponseEntity<Map<String, String>> badRequest(InvalidSearchException e) {
+		return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
 	}
 }
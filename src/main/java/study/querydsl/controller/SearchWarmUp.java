@@ -0,0 +1,37 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberSearchTemplates;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * every search shape prepared at startup : querydsl serialization and hibernate query plans
+ * runs while the context refreshes, i.e. before readiness is reported. --member.search.warm-up=true
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "member.search.warm-up", havingValue = "true")
+@RequiredArgsConstructor
+public class SearchWarmUp {
+
+	private final MemberSearchTemplates memberSearchTemplates;
+	private final MemberRepository memberRepository;
+
+	@PostConstruct
+	public void warmUp() {
+		long start = System.nanoTime();
+		List<MemberSearchCondition> shapes = MemberSearchTemplates.allShapes();
+		memberSearchTemplates.warmUp();
+		for (MemberSearchCondition condition : shapes) {
+			memberRepository.warmUpSearchPage(condition);
+		}
+		log.info("search warm-up: {} shapes in {} ms", shapes.size(), (System.nanoTime() - start) / 1_000_000);
+	}
+}
@@ -0,0 +1,21 @@
+package study.querydsl.dto;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/** page that tells whether totalElements / totalPages are estimated from table statistics */
+public class CountedPage<T> extends PageImpl<T> {
+
+	private final boolean totalApproximate;
+
+	public CountedPage(List<T> content, Pageable pageable, long total, boolean totalApproximate) {
+		super(content, pageable, total);
+		this.totalApproximate = totalApproximate;
+	}
+
+	public boolean isTotalApproximate() {
+		return totalApproximate;
+	}
+}
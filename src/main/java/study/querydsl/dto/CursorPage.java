@@ -0,0 +1,20 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/** keyset page : content and the cursor to request the next page with (null on the last page) */
+@Getter
+public class CursorPage<T> {
+
+	private final List<T> content;
+	private final String nextCursor;
+	private final boolean hasNext;
+
+	public CursorPage(List<T> content, String nextCursor) {
+		this.content = content;
+		this.nextCursor = nextCursor;
+		this.hasNext = nextCursor != null;
+	}
+}
@@ -0,0 +1,16 @@
+package study.querydsl.dto;
+
+/**
+ * a search request the client has to change ( sort key, cursor, size, batch ) : 400 with the message
+ * not an IllegalArgumentException : repository proxies leave it as is, and server-side IAEs stay 500
+ */
+public class InvalidSearchException extends RuntimeException {
+
+	public InvalidSearchException(String message) {
+		super(message);
+	}
+
+	public InvalidSearchException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,46 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * opaque keyset cursor : last (age, memberId) of the previous page
+ * encoded as url-safe base64 so that clients can not depend on its layout
+ */
+@Getter
+public class MemberCursor {
+
+	private static final String SEPARATOR = ":";
+
+	private final int age;
+	private final Long memberId;
+
+	public MemberCursor(int age, Long memberId) {
+		this.age = age;
+		this.memberId = memberId;
+	}
+
+	public static MemberCursor of(MemberTeamDto last) {
+		return new MemberCursor(last.getAge(), last.getMemberId());
+	}
+
+	public String encode() {
+		String raw = age + SEPARATOR + memberId;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static MemberCursor decode(String cursor) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			String[] parts = raw.split(SEPARATOR);
+			if (parts.length != 2) {
+				throw new InvalidSearchException("invalid cursor: " + cursor);
+			}
+			return new MemberCursor(Integer.parseInt(parts[0]), Long.valueOf(parts[1]));
+		} catch (IllegalArgumentException e) { // includes NumberFormatException
+			throw new InvalidSearchException("invalid cursor: " + cursor, e);
+		}
+	}
+}
@@ -3,6 +3,8 @@ package study.querydsl.dto;
 import lombok.Data;
 import org.springframework.objenesis.SpringObjenesis;
 
+import static org.springframework.util.StringUtils.hasText;
+
 @Data
 public class MemberSearchCondition {
 
@@ -11,5 +13,18 @@ public class MemberSearchCondition {
 	private Integer ageGoe;
 	private Integer ageLoe;
 
+	/** copy that searches the same rows and equals other conditions searching the same rows
+	 * blank strings are ignored by the search as null is -> use as cache key */
+	public MemberSearchCondition normalized() {
+		MemberSearchCondition normalized = new MemberSearchCondition();
+		normalized.setUsername(hasText(username) ? username : null);
+		normalized.setTeamName(hasText(teamName) ? teamName : null);
+		normalized.setAgeGoe(ageGoe);
+		normalized.setAgeLoe(ageLoe);
+		return normalized;
+	}
 
+	public boolean hasFilter() {
+		return hasText(username) || hasText(teamName) || ageGoe != null || ageLoe != null;
+	}
 }
@@ -0,0 +1,23 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/** slice without the page metadata of SliceImpl ( pageable, sort, first, last, ... ) */
+@Getter
+public class SliceResponse<T> {
+
+	private final List<T> content;
+	private final int page;
+	private final int size;
+	private final boolean hasNext;
+
+	public SliceResponse(Slice<T> slice) {
+		this.content = slice.getContent();
+		this.page = slice.getNumber();
+		this.size = slice.getSize();
+		this.hasNext = slice.hasNext();
+	}
+}
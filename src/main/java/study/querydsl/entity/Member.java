@@ -8,12 +8,19 @@ import lombok.ToString;
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = {
+		@Index(name = "idx_member_username", columnList = "username, id"), // usernameEq, order by username, id ( searchPage sort )
+		@Index(name = "idx_member_team_age", columnList = "team_id, age"), // join on team_id, then ageGoe / ageLoe within the team
+		@Index(name = "idx_member_age_id", columnList = "age, id")         // keyset seek : order by age, id after the cursor
+})
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
 public class Member {
 
-	@Id @GeneratedValue
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq")
+	@SequenceGenerator(name = "member_seq", sequenceName = "member_seq", allocationSize = 50)
 	private Long id;
 	private String username;
 	private int age;
@@ -0,0 +1,68 @@
+package study.querydsl.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.EntityChangeListener;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * searchPage totals by normalized condition
+ * every write on member / team ( save, dirty checking, bulk update / delete ) clears it after commit
+ * a count started before the last clear may have seen the old rows : take generation() before counting, put rejects it
+ */
+@Component
+public class MemberCountCache implements EntityChangeListener {
+
+	private final Cache<MemberSearchCondition, Long> totals;
+	private final AtomicLong generation = new AtomicLong(); // + 1 on every invalidateAll
+
+	public MemberCountCache(MeterRegistry meterRegistry,
+							@Value("${member.search.count-cache.ttl:30s}") Duration ttl,
+							@Value("${member.search.count-cache.maximum-size:1000}") long maximumSize) {
+		this.totals = Caffeine.newBuilder()
+				.expireAfterWrite(ttl)
+				.maximumSize(maximumSize)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, totals, "memberCount");
+	}
+
+	public Long get(MemberSearchCondition normalized) {
+		return totals.getIfPresent(normalized);
+	}
+
+	public long generation() {
+		return generation.get();
+	}
+
+	public void put(MemberSearchCondition normalized, long total, long generation) {
+		if (generation != this.generation.get()) {
+			return;
+		}
+		totals.put(normalized, total);
+		if (generation != this.generation.get()) {
+			totals.asMap().remove(normalized, total); // cleared in between
+		}
+	}
+
+	public void invalidateAll() {
+		generation.incrementAndGet();
+		totals.invalidateAll();
+	}
+
+	@Override
+	public void entityChanged(Class<?> entityType) {
+		if (entityType == Member.class || entityType == Team.class) {
+			invalidateAll();
+		}
+	}
+}
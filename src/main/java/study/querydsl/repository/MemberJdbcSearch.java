@@ -0,0 +1,147 @@
+package study.querydsl.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.QueryMetrics;
+import study.querydsl.repository.support.SharedReadContext;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * member search on plain jdbc : no JPQL -> SQL translation, no hibernate result handling
+ * one sql per shape ( same bits and predicates as MemberSearchTemplates ), each row goes straight into the MemberTeamDto constructor
+ * runs on the connection of the current transaction
+ */
+@Component
+public class MemberJdbcSearch {
+
+	// one querydsl.query shape for every batch : each sequence of condition shapes is an sql of its own
+	static final String BATCH_SHAPE = "member search batch";
+
+	private static final RowMapper<MemberTeamDto> ROW_MAPPER = (rs, rowNum) -> row(rs, 1);
+
+	private final JdbcTemplate jdbcTemplate;
+	private final EntityManager em;
+	private final QueryMetrics queryMetrics;
+	private final String[] shapes = new String[16];
+
+	public MemberJdbcSearch(JdbcTemplate jdbcTemplate, EntityManager em, QueryMetrics queryMetrics) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.em = em;
+		this.queryMetrics = queryMetrics;
+		for (int shape = 0; shape < shapes.length; shape++) {
+			shapes[shape] = sql(shape);
+		}
+	}
+
+	public List<MemberTeamDto> search(MemberSearchCondition condition) {
+		flushIfReadWrite();
+		int shape = MemberSearchTemplates.shape(condition);
+		String sql = shapes[shape];
+		long start = System.nanoTime();
+		List<MemberTeamDto> result = jdbcTemplate.query(sql, ps -> bind(ps, 1, shape, condition), ROW_MAPPER);
+		queryMetrics.record(sql, System.nanoTime() - start, result.size());
+		return result;
+	}
+
+	/** several conditions in one statement : one union all branch per condition, its first column the condition's index
+	 * every branch is planned on its own ( its own index ), an OR of the conditions would scan the table
+	 * result i holds the rows of condition i, a row matching several conditions is in each of them */
+	public List<List<MemberTeamDto>> searchBatch(List<MemberSearchCondition> conditions) {
+		flushIfReadWrite();
+		int[] branches = new int[conditions.size()];
+		StringBuilder sql = new StringBuilder();
+		for (int i = 0; i < conditions.size(); i++) {
+			branches[i] = MemberSearchTemplates.shape(conditions.get(i));
+			if (i > 0) {
+				sql.append(" union all ");
+			}
+			sql.append("select ").append(i).append(", ").append(shapes[branches[i]].substring("select ".length()));
+		}
+
+		List<List<MemberTeamDto>> result = new ArrayList<>(conditions.size());
+		for (int i = 0; i < conditions.size(); i++) {
+			result.add(new ArrayList<>());
+		}
+		int[] rows = new int[1];
+		long start = System.nanoTime();
+		jdbcTemplate.query(sql.toString(), ps -> {
+			int index = 1;
+			for (int i = 0; i < conditions.size(); i++) {
+				index = bind(ps, index, branches[i], conditions.get(i));
+			}
+		}, rs -> {
+			result.get(rs.getInt(1)).add(row(rs, 2));
+			rows[0]++;
+		});
+		queryMetrics.record(BATCH_SHAPE, System.nanoTime() - start, rows[0]);
+		return result;
+	}
+
+	// hibernate auto-flushes before a JPQL query, not before jdbc : a read-write transaction must see its own changes
+	private void flushIfReadWrite() {
+		if (!SharedReadContext.isActive()) {
+			em.flush();
+		}
+	}
+
+	// id, username, age, team id, team name from column first on
+	private static MemberTeamDto row(ResultSet rs, int first) throws SQLException {
+		return new MemberTeamDto(
+				rs.getLong(first),
+				rs.getString(first + 1),
+				rs.getInt(first + 2),
+				rs.getObject(first + 3, Long.class), // null : member without team
+				rs.getString(first + 4));
+	}
+
+	// team.name = ? never matches a member without team : inner join, same as MemberSearchTemplates
+	static String sql(int shape) {
+		StringBuilder sql = new StringBuilder("select m.id, m.username, m.age, t.id, t.name from member m")
+				.append((shape & 2) != 0 ? " join" : " left join")
+				.append(" team t on t.id = m.team_id");
+
+		List<String> predicates = new ArrayList<>(4);
+		if ((shape & 1) != 0) {
+			predicates.add("m.username = ?");
+		}
+		if ((shape & 2) != 0) {
+			predicates.add("t.name = ?");
+		}
+		if ((shape & 4) != 0) {
+			predicates.add("m.age >= ?");
+		}
+		if ((shape & 8) != 0) {
+			predicates.add("m.age <= ?");
+		}
+		if (!predicates.isEmpty()) {
+			sql.append(" where ").append(String.join(" and ", predicates));
+		}
+		return sql.toString();
+	}
+
+	// returns the index of the next parameter
+	private static int bind(PreparedStatement ps, int index, int shape, MemberSearchCondition condition) throws SQLException {
+		if ((shape & 1) != 0) {
+			ps.setString(index++, condition.getUsername());
+		}
+		if ((shape & 2) != 0) {
+			ps.setString(index++, condition.getTeamName());
+		}
+		if ((shape & 4) != 0) {
+			ps.setInt(index++, condition.getAgeGoe());
+		}
+		if ((shape & 8) != 0) {
+			ps.setInt(index++, condition.getAgeLoe());
+		}
+		return index;
+	}
+}
@@ -5,35 +5,63 @@ import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
+import study.querydsl.dto.InvalidSearchException;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
 
 import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
+// read-only unless a method says otherwise : flush mode MANUAL, no dirty-checking snapshots, read-only jdbc connection
+// joins the caller's transaction as it is, so a read-write caller still sees its own unflushed changes
 @Repository
+@Transactional(readOnly = true)
 //@RequiredArgsConstructor
 public class MemberJpaRepository {
 
 	private final EntityManager em;
 	private final JPAQueryFactory queryFactory;
+	private final MemberSearchTemplates searchTemplates;
+	private final int exportFetchSize;
+	private final int multiGetBatchSize;
+	private final int multiGetMaxIds;
 
 	// Spring inject the argument
-	public MemberJpaRepository(EntityManager em) {
+	public MemberJpaRepository(EntityManager em,
+							   JPAQueryFactory queryFactory,
+							   MemberSearchTemplates searchTemplates,
+							   @Value("${member.export.fetch-size:1000}") int exportFetchSize,
+							   @Value("${member.multi-get.batch-size:1000}") int multiGetBatchSize,
+							   @Value("${member.multi-get.max-ids:1000}") int multiGetMaxIds) {
 		this.em = em;
-		this.queryFactory = new JPAQueryFactory(em);
+		this.queryFactory = queryFactory;
+		this.searchTemplates = searchTemplates;
+		this.exportFetchSize = exportFetchSize;
+		this.multiGetBatchSize = multiGetBatchSize;
+		this.multiGetMaxIds = multiGetMaxIds;
 	}
 
 	// Querydsl with Pure JPA
+	@Transactional
 	public void save(Member member) {
 		em.persist(member);
 	}
@@ -43,6 +71,29 @@ public class MemberJpaRepository {
 		return Optional.ofNullable(findMember);
 	}
 
+	/** several members by id : duplicate ids removed, requested order kept, unknown ids left out
+	 * members already in the persistence context ( or a second level cache region ) are returned without sql,
+	 * the others are read with where id in (...) of at most member.multi-get.batch-size ids ( database bind parameter limit )
+	 * at most member.multi-get.max-ids ids : every one may become a managed entity */
+	public List<Member> findAllByIds(Collection<Long> ids) {
+		if (ids.size() > multiGetMaxIds) {
+			throw new InvalidSearchException("at most " + multiGetMaxIds + " ids: " + ids.size());
+		}
+		List<Long> distinct = ids.stream()
+				.filter(Objects::nonNull)
+				.distinct()
+				.collect(Collectors.toList());
+		return em.unwrap(Session.class)
+				.byMultipleIds(Member.class)
+				.enableSessionCheck(true)
+				.enableOrderedReturn(true) // null where an id isn't found
+				.withBatchSize(multiGetBatchSize)
+				.multiLoad(distinct)
+				.stream()
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList());
+	}
+
 	public List<Member> findAll() {
 		return em.createQuery("select m from Member m ", Member.class)
 				.getResultList();
@@ -60,6 +111,18 @@ public class MemberJpaRepository {
 				.getResultList();
 	}
 
+	// bulk update : runs on the database directly, clear the stale persistence context
+	@Transactional
+	public long bulkAgePlus(int age) {
+		long count = queryFactory
+				.update(member)
+				.set(member.age, member.age.add(1))
+				.where(member.age.goe(age))
+				.execute();
+		em.clear();
+		return count;
+	}
+
 	public List<Member> findByUsername_Querydsl(String username) {
 		return queryFactory
 				.selectFrom(member)
@@ -99,8 +162,10 @@ public class MemberJpaRepository {
 	}
 
 	// Dynamic query performance optimization - where paramter
+	// compiled once per shape of the condition : only binds the values (MemberSearchTemplates)
 	public List<MemberTeamDto> search(MemberSearchCondition condition) {
-		return queryFactory
+		return searchTemplates.search(condition);
+		/*return queryFactory
 				.select(new QMemberTeamDto(
 						member.id.as("memberId"),
 						member.username,
@@ -115,7 +180,37 @@ public class MemberJpaRepository {
 						ageGoe(condition.getAgeGoe()),
 						ageLoe(condition.getAgeLoe())
 				)
-				.fetch();
+				.fetch();*/
+	}
+
+	// streaming export : forward-only cursor, each row is handed to the consumer as it's read instead of building a List
+	// MemberTeamDto rows aren't managed : the persistence context doesn't grow, nothing to clear
+	@Transactional(readOnly = true)
+	public long export(MemberSearchCondition condition, Consumer<MemberTeamDto> consumer) {
+		long count = 0;
+		try (Stream<MemberTeamDto> rows = queryFactory
+				.select(new QMemberTeamDto(
+						member.id.as("memberId"),
+						member.username,
+						member.age,
+						team.id.as("teamId"),
+						team.name.as("teamName")))
+				.from(member)
+				.leftJoin(member.team, team)
+				.where(
+						usernameEq(condition.getUsername()),
+						teamNameEq(condition.getTeamName()),
+						ageGoe(condition.getAgeGoe()),
+						ageLoe(condition.getAgeLoe())
+				)
+				.setHint(QueryHints.FETCH_SIZE, exportFetchSize)
+				.stream()) {
+			for (Iterator<MemberTeamDto> it = rows.iterator(); it.hasNext(); ) {
+				consumer.accept(it.next());
+				count++;
+			}
+		}
+		return count;
 	}
 
 	private BooleanExpression usernameEq(String username) {
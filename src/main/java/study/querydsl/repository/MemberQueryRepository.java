@@ -4,11 +4,13 @@ import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.support.SharedReadContext;
 
-import javax.persistence.EntityManager;
 import java.util.List;
 
 import static org.springframework.util.StringUtils.hasText;
@@ -17,15 +19,28 @@ import static study.querydsl.entity.QTeam.team;
 
 // custom repository
 @Repository
+@Transactional(readOnly = true)
 public class MemberQueryRepository {
 
 	private final JPAQueryFactory queryFactory;
+	private final MemberSearchCache searchCache;
 
-	public MemberQueryRepository(EntityManager em) {
-		this.queryFactory = new JPAQueryFactory(em);
+	public MemberQueryRepository(JPAQueryFactory queryFactory, MemberSearchCache searchCache) {
+		this.queryFactory = queryFactory;
+		this.searchCache = searchCache;
 	}
 
+	// result cache outside of read-write transactions, which may see their own uncommitted rows
+	// no transaction of its own : a cache hit, or a caller waiting for the same condition to load, holds no connection
+	@Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
 	public List<MemberTeamDto> search(MemberSearchCondition condition) {
+		if (!SharedReadContext.isActive()) {
+			return searchDb(condition);
+		}
+		return searchCache.get(condition, () -> searchDb(condition));
+	}
+
+	private List<MemberTeamDto> searchDb(MemberSearchCondition condition) {
 		return queryFactory
 				.select(new QMemberTeamDto(
 						member.id.as("memberId"),
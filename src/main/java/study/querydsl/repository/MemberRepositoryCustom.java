@@ -2,6 +2,9 @@ package study.querydsl.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import study.querydsl.dto.CursorPage;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 
@@ -13,4 +16,14 @@ public interface MemberRepositoryCustom {
 
 	Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable);
 
+	// searchPage content and count query prepared for the condition's shape, no rows read
+	void warmUpSearchPage(MemberSearchCondition condition);
+
+	Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable);
+
+	CursorPage<MemberTeamDto> searchKeyset(MemberSearchCondition condition, MemberCursor cursor, int size);
+
+	// several conditions in one query, result i holds the rows of condition i
+	List<List<MemberTeamDto>> searchBatch(List<MemberSearchCondition> conditions);
+
 }
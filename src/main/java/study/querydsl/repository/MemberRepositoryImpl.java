@@ -1,32 +1,114 @@
 package study.querydsl.repository;
 
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.CountedPage;
+import study.querydsl.dto.CursorPage;
+import study.querydsl.dto.InvalidSearchException;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.support.CountQueryUtils;
+import study.querydsl.repository.support.SharedReadContext;
+import study.querydsl.repository.support.TableStatistics;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
 
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
-public class MemberRepositoryImpl implements MemberRepositoryCustom{
+// read-only, same as the SimpleJpaRepository finders of MemberRepository
+@Transactional(readOnly = true)
+public class MemberRepositoryImpl implements MemberRepositoryCustom, DisposableBean {
 
 	private final JPAQueryFactory queryFactory;
+	private final EntityManagerFactory emf;
+	private final MemberSearchTemplates searchTemplates;
+	private final MemberSearchSort searchSort;
+	private final MemberJdbcSearch jdbcSearch;
+	private final boolean searchOnJdbc;
+	private final MemberCountCache countCache;
+	private final TableStatistics tableStatistics;
+	private final boolean approximateTotal;
+	private final boolean deferredJoin;
+	private final int maxBatchConditions;
+	private final int maxKeysetSize;
+	private final ThreadPoolTaskExecutor countQueryExecutor; // bounded pool for count queries, null if disabled
 
-	public MemberRepositoryImpl(EntityManager em) {
-		this.queryFactory = new JPAQueryFactory(em);
+	public MemberRepositoryImpl(JPAQueryFactory queryFactory,
+								EntityManagerFactory emf,
+								MemberSearchTemplates searchTemplates,
+								MemberSearchSort searchSort,
+								MemberJdbcSearch jdbcSearch,
+								MemberCountCache countCache,
+								TableStatistics tableStatistics,
+								@Value("${member.search.jdbc:false}") boolean searchOnJdbc,
+								@Value("${member.search.count.approximate:false}") boolean approximateTotal,
+								@Value("${member.search.deferred-join:false}") boolean deferredJoin,
+								@Value("${member.search.batch.max-conditions:100}") int maxBatchConditions,
+								@Value("${member.search.keyset.max-size:100}") int maxKeysetSize,
+								@Value("${member.search.concurrent-count:false}") boolean concurrentCount,
+								@Value("${member.search.count-executor.pool-size:4}") int poolSize,
+								@Value("${member.search.count-executor.queue-capacity:100}") int queueCapacity) {
+		this.queryFactory = queryFactory;
+		this.emf = emf;
+		this.searchTemplates = searchTemplates;
+		this.searchSort = searchSort;
+		this.jdbcSearch = jdbcSearch;
+		this.searchOnJdbc = searchOnJdbc;
+		this.countCache = countCache;
+		this.tableStatistics = tableStatistics;
+		this.approximateTotal = approximateTotal;
+		this.deferredJoin = deferredJoin;
+		this.maxBatchConditions = maxBatchConditions;
+		this.maxKeysetSize = maxKeysetSize;
+		this.countQueryExecutor = concurrentCount ? countQueryExecutor(poolSize, queueCapacity) : null;
+	}
+
+	private static ThreadPoolTaskExecutor countQueryExecutor(int poolSize, int queueCapacity) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(poolSize);
+		executor.setMaxPoolSize(poolSize);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setThreadNamePrefix("count-query-");
+		executor.initialize();
+		return executor;
+	}
+
+	@Override
+	public void destroy() {
+		if (countQueryExecutor != null) {
+			countQueryExecutor.shutdown();
+		}
 	}
 
 	// if registered as spring bean
@@ -34,9 +116,15 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
 		this.queryFactory = queryFactory;
 	}*/
 
+	// compiled once per shape of the condition : only binds the values (MemberSearchTemplates)
+	// member.search.jdbc : same shapes as plain sql, rows mapped without hibernate (MemberJdbcSearch)
 	@Override
 	public List<MemberTeamDto> search(MemberSearchCondition condition) {
-		return queryFactory
+		if (searchOnJdbc) {
+			return jdbcSearch.search(condition);
+		}
+		return searchTemplates.search(condition);
+		/*return queryFactory
 				.select(new QMemberTeamDto(
 						member.id.as("memberId"),
 						member.username,
@@ -51,7 +139,7 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
 						ageGoe(condition.getAgeGoe()),
 						ageLoe(condition.getAgeLoe())
 				)
-				.fetch();
+				.fetch();*/
 	}
 
 
@@ -60,51 +148,290 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
 	 * because fetchResults() deprecated */
 	@Override
 	public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
-		List<MemberTeamDto> content = queryFactory
-				.select(new QMemberTeamDto(
-						member.id.as("memberId"),
-						member.username,
-						member.age,
-						team.id.as("teamId"),
-						team.name.as("teamName")))
+		JPAQuery<MemberTeamDto> query = searchPageQuery(condition);
+
+		/*long total = queryFactory
+				.select(member.count())
 				.from(member)
 				.leftJoin(member.team, team)
+				.where(
+						usernameEq(condition.getUsername()),
+						teamNameEq(condition.getTeamName()),
+						ageGoe(condition.getAgeGoe()),
+						ageLoe(condition.getAgeLoe()))
+				.fetchOne();
+
+		return new PageImpl<>(content, pageable, total);*/
+
+		// countQuery optimization : derived from the content query, left join team only if teamName is given
+		JPAQuery<Long> countQuery = CountQueryUtils.countQuery(queryFactory, query);
+
+		// allow-listed sort keys, member.id tiebreaker ( MemberSearchSort ) : the count query has no order by
+		List<OrderSpecifier<?>> orderBy = searchSort.orderBy(pageable.getSort());
+		query.orderBy(orderBy.toArray(OrderSpecifier[]::new));
+
+		MemberSearchCondition key = condition.normalized();
+		boolean approximate = approximateTotal && !key.hasFilter();
+		boolean shared = SharedReadContext.isActive(); // count concurrently and cache totals
+		long generation = countCache.generation(); // before the count can read anything
+		Long cached = shared && !approximate ? countCache.get(key) : null;
+
+		// count on another connection while the content query runs
+		// started before PageableExecutionUtils knows whether it needs the total : on a short first / last page it is
+		// cancelled if still queued, otherwise it runs for nothing ( SearchPageBenchmark, page "last" )
+		CompletableFuture<Long> total = shared && !approximate && cached == null && countQueryExecutor != null && pageable.isPaged()
+				? countAsync(countQuery)
+				: null;
+
+		List<MemberTeamDto> content;
+		try {
+			content = deferredJoin && pageable.isPaged()
+					? fetchDeferred(condition, pageable, orderBy)
+					: query
+							.offset(pageable.getOffset())
+							.limit(pageable.getPageSize())
+							.fetch();
+		} catch (RuntimeException e) {
+			if (total != null) {
+				total.cancel(false);
+			}
+			throw e;
+		}
+
+		LongSupplier totalSupplier;
+		if (approximate) {
+			totalSupplier = () -> tableStatistics.estimateRowCount("member");
+		} else if (cached != null) {
+			totalSupplier = () -> cached;
+		} else {
+			// return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetchOne());
+			LongSupplier count = total != null ? () -> await(total) : countQuery::fetchOne;
+			totalSupplier = !shared ? count : () -> {
+				long counted = count.getAsLong();
+				countCache.put(key, counted, generation);
+				return counted;
+			};
+		}
+
+		// PageableExecutionUtils skips the count on the first and the last page if it can work out the total
+		AtomicBoolean counted = new AtomicBoolean();
+		Page<MemberTeamDto> page = PageableExecutionUtils.getPage(content, pageable, () -> {
+			counted.set(true);
+			return totalSupplier.getAsLong();
+		});
+		if (total != null) {
+			total.cancel(false); // count not needed : skipped if it's still queued
+		}
+		return new CountedPage<>(page.getContent(), pageable, page.getTotalElements(), approximate && counted.get());
+	}
+
+	/** deferred join : offset over member ids only, then the wide row for the ids of the page
+	 * the skipped rows cost an id read each ( from an index where the filters have one ) instead of a joined, projected row
+	 * ids in the order of the page ( MemberSearchSort ), the rows put back into it */
+	private List<MemberTeamDto> fetchDeferred(MemberSearchCondition condition, Pageable pageable, List<OrderSpecifier<?>> orderBy) {
+		JPAQuery<Long> idQuery = queryFactory
+				.select(member.id)
+				.from(member);
+		if (hasText(condition.getTeamName())) {
+			idQuery.join(member.team, team); // to filter : a to-one left join can't change the ids
+		} else if (orderBy.stream().anyMatch(order -> order.getTarget().equals(team.name))) {
+			idQuery.leftJoin(member.team, team); // to sort only
+		}
+		List<Long> ids = idQuery
 				.where(
 						usernameEq(condition.getUsername()),
 						teamNameEq(condition.getTeamName()),
 						ageGoe(condition.getAgeGoe()),
 						ageLoe(condition.getAgeLoe())
 				)
+				.orderBy(orderBy.toArray(OrderSpecifier[]::new))
 				.offset(pageable.getOffset())
 				.limit(pageable.getPageSize())
 				.fetch();
+		if (ids.isEmpty()) {
+			return List.of();
+		}
 
-		/*long total = queryFactory
-				.select(member.count())
+		Map<Long, MemberTeamDto> rows = new HashMap<>();
+		for (MemberTeamDto row : queryFactory
+				.select(new QMemberTeamDto(
+						member.id.as("memberId"),
+						member.username,
+						member.age,
+						team.id.as("teamId"),
+						team.name.as("teamName")))
+				.from(member)
+				.leftJoin(member.team, team)
+				.where(member.id.in(ids))
+				.fetch()) {
+			rows.put(row.getMemberId(), row);
+		}
+
+		// back into the order of the id page, "in" has none
+		List<MemberTeamDto> content = new ArrayList<>(ids.size());
+		for (Long id : ids) {
+			MemberTeamDto row = rows.get(id);
+			if (row != null) { // deleted in between
+				content.add(row);
+			}
+		}
+		return content;
+	}
+
+	// max results 0 : hibernate parses the query but doesn't execute it
+	// limit isn't part of the JPQL, so these are the plans searchPage uses ( querydsl itself rejects limit 0 )
+	// unsorted order only : sorted pages parse on first use
+	@Override
+	public void warmUpSearchPage(MemberSearchCondition condition) {
+		JPAQuery<MemberTeamDto> query = searchPageQuery(condition);
+		CountQueryUtils.countQuery(queryFactory, query).createQuery().setMaxResults(0).getResultList();
+		query.orderBy(searchSort.orderBy(Sort.unsorted()).toArray(OrderSpecifier[]::new));
+		query.createQuery().setMaxResults(0).getResultList();
+	}
+
+	private JPAQuery<MemberTeamDto> searchPageQuery(MemberSearchCondition condition) {
+		return queryFactory
+				.select(new QMemberTeamDto(
+						member.id.as("memberId"),
+						member.username,
+						member.age,
+						team.id.as("teamId"),
+						team.name.as("teamName")))
 				.from(member)
 				.leftJoin(member.team, team)
 				.where(
 						usernameEq(condition.getUsername()),
 						teamNameEq(condition.getTeamName()),
 						ageGoe(condition.getAgeGoe()),
-						ageLoe(condition.getAgeLoe()))
-				.fetchOne();
+						ageLoe(condition.getAgeLoe())
+				);
+	}
 
-		return new PageImpl<>(content, pageable, total);*/
+	private CompletableFuture<Long> countAsync(JPAQuery<Long> countQuery) {
+		try {
+			return CompletableFuture.supplyAsync(() -> {
+				EntityManager countEm = emf.createEntityManager();
+				try {
+					return countQuery.clone(countEm).fetchOne();
+				} finally {
+					countEm.close();
+				}
+			}, countQueryExecutor);
+		} catch (RejectedExecutionException e) {
+			return null; // executor saturated : count after the content query as usual
+		}
+	}
 
-		// countQuery optimization
-		JPAQuery<Long> countQuery = queryFactory
-				.select(member.count())
+	private static Long await(CompletableFuture<Long> total) {
+		try {
+			return total.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/** no count query : fetch one more row than the page size to know whether there's a next page
+	 * same order as searchPage ( MemberSearchSort ) : offset slices need one to not repeat or skip rows */
+	@Override
+	public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+		JPAQuery<MemberTeamDto> query = searchPageQuery(condition)
+				.orderBy(searchSort.orderBy(pageable.getSort()).toArray(OrderSpecifier[]::new));
+		if (pageable.isUnpaged()) {
+			return new SliceImpl<>(query.fetch(), pageable, false);
+		}
+
+		List<MemberTeamDto> content = query
+				.offset(pageable.getOffset())
+				.limit(pageable.getPageSize() + 1)
+				.fetch();
+
+		boolean hasNext = content.size() > pageable.getPageSize();
+		if (hasNext) {
+			content = content.subList(0, pageable.getPageSize());
+		}
+		return new SliceImpl<>(content, pageable, hasNext);
+	}
+
+	/** keyset (seek) paging
+	 * order by age, id and continue after the cursor instead of skipping rows with offset
+	 * fetch size + 1 rows to know whether there's a next page without count query
+	 * size capped at member.search.keyset.max-size */
+	@Override
+	public CursorPage<MemberTeamDto> searchKeyset(MemberSearchCondition condition, MemberCursor cursor, int size) {
+		if (size < 1) {
+			throw new InvalidSearchException("size must be positive: " + size);
+		}
+		size = Math.min(size, maxKeysetSize);
+		List<MemberTeamDto> content = queryFactory
+				.select(new QMemberTeamDto(
+						member.id.as("memberId"),
+						member.username,
+						member.age,
+						team.id.as("teamId"),
+						team.name.as("teamName")))
 				.from(member)
 				.leftJoin(member.team, team)
 				.where(
 						usernameEq(condition.getUsername()),
 						teamNameEq(condition.getTeamName()),
 						ageGoe(condition.getAgeGoe()),
-						ageLoe(condition.getAgeLoe()));
+						ageLoe(condition.getAgeLoe()),
+						after(cursor)
+				)
+				.orderBy(member.age.asc(), member.id.asc())
+				.limit(size + 1)
+				.fetch();
+
+		if (content.size() <= size) {
+			return new CursorPage<>(content, null);
+		}
+		content = content.subList(0, size);
+		return new CursorPage<>(content, MemberCursor.of(content.get(size - 1)).encode());
+	}
+
+	/** several conditions in one round trip
+	 * JPQL has no union all : one plain sql statement, a union all branch per condition tagged with its index ( MemberJdbcSearch )
+	 * the database decides which condition a row matches ( its collation, its null rules ), each branch uses its own index
+	 * ( was : the conditions OR-ed into one JPQL query, rows split back in memory with String.equals )
+	 * identical conditions are searched once, a condition without filter would load every member into the batch : rejected */
+	@Override
+	public List<List<MemberTeamDto>> searchBatch(List<MemberSearchCondition> conditions) {
+		if (conditions.size() > maxBatchConditions) {
+			throw new InvalidSearchException("at most " + maxBatchConditions + " conditions: " + conditions.size());
+		}
+		if (conditions.isEmpty()) {
+			return List.of();
+		}
+
+		Map<MemberSearchCondition, Integer> distinct = new LinkedHashMap<>();
+		for (int i = 0; i < conditions.size(); i++) {
+			MemberSearchCondition condition = conditions.get(i);
+			if (!condition.hasFilter()) {
+				throw new InvalidSearchException("condition " + i + " has no filter : page all members with /v2/members");
+			}
+			distinct.putIfAbsent(condition.normalized(), distinct.size());
+		}
+		List<List<MemberTeamDto>> rows = jdbcSearch.searchBatch(new ArrayList<>(distinct.keySet()));
+
+		List<List<MemberTeamDto>> result = new ArrayList<>(conditions.size());
+		for (MemberSearchCondition condition : conditions) {
+			result.add(rows.get(distinct.get(condition.normalized())));
+		}
+		return result;
+	}
 
-		// return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetchOne());
-		return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+	private BooleanExpression after(MemberCursor cursor) {
+		if (cursor == null) {
+			return null;
+		}
+		// age >= ? is implied by the rest : it's what lets idx_member_age_id (age, id) start at the cursor instead of the first row
+		// return member.age.gt(cursor.getAge())
+		// 		.or(member.age.eq(cursor.getAge()).and(member.id.gt(cursor.getMemberId())));
+		return member.age.goe(cursor.getAge())
+				.and(member.age.gt(cursor.getAge()).or(member.id.gt(cursor.getMemberId())));
 	}
 
 	private BooleanExpression usernameEq(String username) {
@@ -0,0 +1,88 @@
+package study.querydsl.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.EntityChangeListener;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * search results by normalized condition, bounded by rows ( W-TinyLFU eviction ) and expiring
+ * every write on member / team ( save, dirty checking, bulk update / delete ) clears it after commit
+ * a search still running when it is cleared may have read the old rows : it is answered but not kept
+ * metrics : cache.gets{cache=memberSearch,result=hit|miss}, cache.evictions, cache.size
+ */
+@Component
+public class MemberSearchCache implements EntityChangeListener {
+
+	private final Cache<MemberSearchCondition, Rows> results;
+	private final AtomicLong generation = new AtomicLong(); // + 1 on every invalidateAll
+	private final boolean enabled;
+
+	public MemberSearchCache(MeterRegistry meterRegistry,
+							 @Value("${member.search.result-cache.ttl:10s}") Duration ttl,
+							 @Value("${member.search.result-cache.maximum-rows:100000}") long maximumRows) {
+		this.enabled = maximumRows > 0; // caffeine evicts over-weight entries asynchronously : a bound of 0 would still answer hits
+		this.results = Caffeine.newBuilder()
+				.expireAfterWrite(ttl)
+				.maximumWeight(maximumRows)
+				.weigher((MemberSearchCondition key, Rows value) -> value.rows.size() + 1) // + 1 : empty results are not free
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, results, "memberSearch");
+	}
+
+	public List<MemberTeamDto> get(MemberSearchCondition condition, Supplier<List<MemberTeamDto>> search) {
+		if (!enabled) {
+			return search.get();
+		}
+		MemberSearchCondition key = condition.normalized();
+		while (true) {
+			long started = generation.get();
+			Rows value = results.get(key, k -> new Rows(started, Collections.unmodifiableList(search.get())));
+			if (value.generation == generation.get()) {
+				return value.rows;
+			}
+			// loaded before the last invalidateAll
+			results.asMap().remove(key, value);
+			if (value.generation == started) {
+				return value.rows; // this search's own load : as if it had finished before the write
+			}
+		}
+	}
+
+	public void invalidateAll() {
+		generation.incrementAndGet();
+		results.invalidateAll();
+	}
+
+	@Override
+	public void entityChanged(Class<?> entityType) {
+		if (entityType == Member.class || entityType == Team.class) {
+			invalidateAll();
+		}
+	}
+
+	private static final class Rows {
+
+		private final long generation;
+		private final List<MemberTeamDto> rows;
+
+		private Rows(long generation, List<MemberTeamDto> rows) {
+			this.generation = generation;
+			this.rows = rows;
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.SharedReadContext;
+import study.querydsl.repository.support.SingleFlight;
+
+import java.util.List;
+
+/**
+ * identical concurrent /v2/members searches run once ( SingleFlight ), keyed by normalized condition and page
+ * /v1/members needs none : MemberSearchCache loads a missing condition once for concurrent callers
+ * in front of the repository's read-only transaction : callers waiting for a running search hold no connection
+ * not inside a read-write transaction, which has to see its own changes
+ * metrics : singleflight.calls{name=memberSearchPage, result=executed|shared}
+ */
+@Component
+public class MemberSearchCoalescer {
+
+	private final MemberRepository memberRepository;
+	private final boolean enabled;
+	private final SingleFlight<List<Object>, Page<MemberTeamDto>> pages;
+
+	public MemberSearchCoalescer(MemberRepository memberRepository,
+								 MeterRegistry meterRegistry,
+								 @Value("${member.search.single-flight:true}") boolean enabled) {
+		this.memberRepository = memberRepository;
+		this.enabled = enabled;
+		this.pages = new SingleFlight<>(meterRegistry, "memberSearchPage");
+	}
+
+	public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+		if (!enabled || !SharedReadContext.isActive()) {
+			return memberRepository.searchPage(condition, pageable);
+		}
+		return pages.execute(List.of(condition.normalized(), pageable),
+				() -> memberRepository.searchPage(condition, pageable));
+	}
+}
@@ -0,0 +1,123 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.InvalidSearchException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * searchPage / searchSlice sort : allow-listed properties of MemberTeamDto to order specifiers, member.id last as tiebreaker
+ * ex) ?sort=teamName&sort=age,desc -> order by team.name asc, member.age desc, member.id asc
+ * a sort no index backs is logged once ( member.search.sort.unindexed=warn ) or rejected ( =reject )
+ */
+@Slf4j
+@Component
+public class MemberSearchSort {
+
+	private static final Map<String, SortKey> KEYS = Map.of(
+			"memberId", new SortKey(member.id, true),
+			"id", new SortKey(member.id, true),
+			"username", new SortKey(member.username, true), // idx_member_username ( username, id )
+			"teamName", new SortKey(team.name, false), // idx_team_name orders teams, not the joined member rows
+			"age", new SortKey(member.age, true)); // idx_member_age_id ( age, id )
+
+	private final boolean rejectUnindexed;
+	private final Set<String> warned = ConcurrentHashMap.newKeySet();
+
+	public MemberSearchSort(@Value("${member.search.sort.unindexed:warn}") String unindexed) {
+		if (!unindexed.equals("warn") && !unindexed.equals("reject")) {
+			throw new IllegalArgumentException("member.search.sort.unindexed must be warn or reject: " + unindexed);
+		}
+		this.rejectUnindexed = unindexed.equals("reject");
+	}
+
+	// unsorted : member.id only, offset pages need an order to not repeat or skip rows
+	public List<OrderSpecifier<?>> orderBy(Sort sort) {
+		List<OrderSpecifier<?>> orders = new ArrayList<>();
+		List<Sort.Order> applied = new ArrayList<>();
+		boolean unique = false;
+		for (Sort.Order order : sort) {
+			SortKey key = KEYS.get(order.getProperty());
+			if (key == null) {
+				throw new InvalidSearchException("unsupported sort property: " + order.getProperty()
+						+ ", allowed: " + KEYS.keySet());
+			}
+			if (order.isIgnoreCase()) {
+				throw new InvalidSearchException("ignore case sort is not supported: " + order.getProperty());
+			}
+			orders.add(orderSpecifier(key.expression, order));
+			applied.add(order);
+			if (key.expression == member.id) {
+				unique = true;
+				break; // anything after it can't change the order
+			}
+		}
+		if (!indexed(applied)) {
+			unindexed(Sort.by(applied).toString());
+		}
+		if (!unique) {
+			orders.add(member.id.asc()); // equal sort keys : a stable order between pages
+		}
+		return orders;
+	}
+
+	/** one indexed key, then id, all ascending : the indexes are ( key, id ) and H2 reads them forward only */
+	private static boolean indexed(List<Sort.Order> applied) {
+		if (applied.isEmpty()) {
+			return true; // member.id
+		}
+		Sort.Order first = applied.get(0);
+		SortKey key = KEYS.get(first.getProperty());
+		if (!key.indexed || first.isDescending()) {
+			return false;
+		}
+		if (applied.size() == 1 || key.expression == member.id) {
+			return true;
+		}
+		Sort.Order second = applied.get(1);
+		return KEYS.get(second.getProperty()).expression == member.id && second.isAscending();
+	}
+
+	private void unindexed(String sort) {
+		if (rejectUnindexed) {
+			throw new InvalidSearchException("sort by " + sort + " needs a full sort of the matching rows");
+		}
+		if (warned.add(sort)) {
+			log.warn("member search sorted by {} : no index backs it, every page sorts all matching rows", sort);
+		}
+	}
+
+	private static OrderSpecifier<?> orderSpecifier(ComparableExpressionBase<?> expression, Sort.Order order) {
+		OrderSpecifier<?> orderSpecifier = order.isAscending() ? expression.asc() : expression.desc();
+		switch (order.getNullHandling()) {
+			case NULLS_FIRST:
+				return orderSpecifier.nullsFirst();
+			case NULLS_LAST:
+				return orderSpecifier.nullsLast();
+			default:
+				return orderSpecifier;
+		}
+	}
+
+	private static class SortKey {
+		private final ComparableExpressionBase<?> expression;
+		private final boolean indexed;
+
+		private SortKey(ComparableExpressionBase<?> expression, boolean indexed) {
+			this.expression = expression;
+			this.indexed = indexed;
+		}
+	}
+}
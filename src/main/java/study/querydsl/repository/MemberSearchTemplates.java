@@ -0,0 +1,118 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.support.QueryMetrics;
+import study.querydsl.repository.support.QueryTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * where-parameter search compiled once per shape
+ * 4 optional predicates -> 16 shapes, bit set when the predicate is applied ( same rules as usernameEq, teamNameEq, ... )
+ */
+@Component
+public class MemberSearchTemplates {
+
+	private static final Param<String> USERNAME = new Param<>(String.class, "username");
+	private static final Param<String> TEAM_NAME = new Param<>(String.class, "teamName");
+	private static final Param<Integer> AGE_GOE = new Param<>(Integer.class, "ageGoe");
+	private static final Param<Integer> AGE_LOE = new Param<>(Integer.class, "ageLoe");
+
+	private final EntityManager em;
+	private final QueryMetrics queryMetrics;
+	private final AtomicReferenceArray<QueryTemplate<MemberTeamDto>> shapes = new AtomicReferenceArray<>(16);
+
+	public MemberSearchTemplates(EntityManager em, QueryMetrics queryMetrics) {
+		this.em = em;
+		this.queryMetrics = queryMetrics;
+	}
+
+	public List<MemberTeamDto> search(MemberSearchCondition condition) {
+		QueryTemplate<MemberTeamDto> template = template(condition);
+		long start = System.nanoTime();
+		List<MemberTeamDto> result = template.fetch(em,
+				condition.getUsername(), condition.getTeamName(), condition.getAgeGoe(), condition.getAgeLoe());
+		queryMetrics.record(template.getJpql(), System.nanoTime() - start, result.size());
+		return result;
+	}
+
+	// values in the order username, teamName, ageGoe, ageLoe
+	public QueryTemplate<MemberTeamDto> template(MemberSearchCondition condition) {
+		int shape = shape(condition);
+		QueryTemplate<MemberTeamDto> template = shapes.get(shape);
+		if (template == null) {
+			template = compile(shape); // compiling twice on a race is harmless
+			shapes.set(shape, template);
+		}
+		return template;
+	}
+
+	/** compiles every shape and has hibernate parse it, no rows read ( max results 0 ) */
+	public void warmUp() {
+		for (MemberSearchCondition condition : allShapes()) {
+			template(condition)
+					.createQuery(em, condition.getUsername(), condition.getTeamName(), condition.getAgeGoe(), condition.getAgeLoe())
+					.setMaxResults(0)
+					.getResultList();
+		}
+	}
+
+	// one condition per shape, values are placeholders
+	public static List<MemberSearchCondition> allShapes() {
+		List<MemberSearchCondition> conditions = new ArrayList<>(16);
+		for (int shape = 0; shape < 16; shape++) {
+			MemberSearchCondition condition = new MemberSearchCondition();
+			condition.setUsername((shape & 1) != 0 ? "warm-up" : null);
+			condition.setTeamName((shape & 2) != 0 ? "warm-up" : null);
+			condition.setAgeGoe((shape & 4) != 0 ? 0 : null);
+			condition.setAgeLoe((shape & 8) != 0 ? 0 : null);
+			conditions.add(condition);
+		}
+		return conditions;
+	}
+
+	static int shape(MemberSearchCondition condition) {
+		return (hasText(condition.getUsername()) ? 1 : 0)
+				| (hasText(condition.getTeamName()) ? 2 : 0)
+				| (condition.getAgeGoe() != null ? 4 : 0)
+				| (condition.getAgeLoe() != null ? 8 : 0);
+	}
+
+	private QueryTemplate<MemberTeamDto> compile(int shape) {
+		JPAQuery<MemberTeamDto> query = new JPAQuery<Void>()
+				.select(new QMemberTeamDto(
+						member.id.as("memberId"),
+						member.username,
+						member.age,
+						team.id.as("teamId"),
+						team.name.as("teamName")))
+				.from(member);
+		// team.name = ? never matches a member without team, so the inner join returns the same rows
+		// and lets the db start from idx_team_name then idx_member_team_age ( an outer join fixes member as the driving table )
+		if ((shape & 2) != 0) {
+			query.join(member.team, team);
+		} else {
+			query.leftJoin(member.team, team);
+		}
+		query.where(
+				(shape & 1) != 0 ? member.username.eq(USERNAME) : null,
+				(shape & 2) != 0 ? team.name.eq(TEAM_NAME) : null,
+				(shape & 4) != 0 ? member.age.goe(AGE_GOE) : null,
+				(shape & 8) != 0 ? member.age.loe(AGE_LOE) : null
+		);
+		return QueryTemplate.compile(JPAProvider.getTemplates(em), query, USERNAME, TEAM_NAME, AGE_GOE, AGE_LOE);
+	}
+}
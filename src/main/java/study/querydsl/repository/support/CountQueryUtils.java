@@ -0,0 +1,176 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.MapExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.Wildcard;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * derive the smallest count query from a content query
+ * - projection, order by, offset/limit and fetch joins are dropped
+ * - left joins on a to-one association that no where / join condition refers to are dropped
+ *   (at most one row can match, so the join can't change the count)
+ * - inner joins, to-many joins and entity (theta) joins are kept, they can filter or multiply rows
+ *
+ * ex) select count(*) from Member member1 where member1.age >= ?1
+ *     for select ... from Member member1 left join member1.team as team where member1.age >= ?1 order by ...
+ */
+public final class CountQueryUtils {
+
+	private CountQueryUtils() {
+	}
+
+	public static JPAQuery<Long> countQuery(JPAQueryFactory queryFactory, JPAQuery<?> contentQuery) {
+		QueryMetadata source = contentQuery.getMetadata();
+		if (!source.getGroupBy().isEmpty() || source.getHaving() != null) {
+			throw new IllegalArgumentException("group by queries are not supported: " + contentQuery);
+		}
+
+		Set<Path<?>> referenced = new HashSet<>();
+		collect(source.getWhere(), referenced);
+
+		// walk backwards : a kept join may refer to an earlier alias ( left join team.xxx )
+		List<JoinExpression> joins = source.getJoins();
+		boolean[] keep = new boolean[joins.size()];
+		for (int i = joins.size() - 1; i >= 0; i--) {
+			JoinExpression join = joins.get(i);
+			keep[i] = i == 0 || !removable(join, referenced);
+			if (keep[i]) {
+				collect(join.getTarget(), referenced);
+				collect(join.getCondition(), referenced);
+			}
+		}
+
+		JPAQuery<?> countQuery = queryFactory.query();
+		QueryMetadata metadata = countQuery.getMetadata();
+		for (int i = 0; i < joins.size(); i++) {
+			if (keep[i]) {
+				JoinExpression join = joins.get(i);
+				metadata.addJoin(join.getType(), join.getTarget());
+				if (join.getCondition() != null) {
+					metadata.addJoinCondition(join.getCondition());
+				}
+			}
+		}
+		if (source.getWhere() != null) {
+			metadata.addWhere(source.getWhere());
+		}
+		for (Map.Entry<ParamExpression<?>, Object> param : source.getParams().entrySet()) {
+			setParam(metadata, param.getKey(), param.getValue());
+		}
+
+		if (!source.isDistinct()) {
+			return countQuery.select(Wildcard.count);
+		}
+		Expression<?> projection = source.getProjection();
+		if (projection == null || projection instanceof FactoryExpression) {
+			throw new IllegalArgumentException("distinct count needs a single expression projection: " + contentQuery);
+		}
+		return countQuery.select(Expressions.numberOperation(Long.class, Ops.AggOps.COUNT_DISTINCT_AGG, projection));
+	}
+
+	/** left join member.team team : removable if team is never referenced */
+	private static boolean removable(JoinExpression join, Set<Path<?>> referenced) {
+		if (join.getType() != JoinType.LEFTJOIN || !(join.getTarget() instanceof Operation)) {
+			return false;
+		}
+		Operation<?> target = (Operation<?>) join.getTarget();
+		if (target.getOperator() != Ops.ALIAS) {
+			return false;
+		}
+		Expression<?> association = target.getArg(0);
+		boolean toOne = association instanceof Path
+				&& !((Path<?>) association).getMetadata().isRoot()
+				&& !(association instanceof CollectionExpression)
+				&& !(association instanceof MapExpression);
+		return toOne && !referenced.contains(target.getArg(1));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> void setParam(QueryMetadata metadata, ParamExpression<T> param, Object value) {
+		metadata.setParam(param, (T) value);
+	}
+
+	private static void collect(Expression<?> expression, Set<Path<?>> roots) {
+		if (expression != null) {
+			expression.accept(RootPathCollector.INSTANCE, roots);
+		}
+	}
+
+	/** collect the root (alias) of every path used in an expression, subqueries included */
+	private enum RootPathCollector implements Visitor<Void, Set<Path<?>>> {
+		INSTANCE;
+
+		@Override
+		public Void visit(Constant<?> expr, Set<Path<?>> roots) {
+			return null;
+		}
+
+		@Override
+		public Void visit(FactoryExpression<?> expr, Set<Path<?>> roots) {
+			expr.getArgs().forEach(arg -> collect(arg, roots));
+			return null;
+		}
+
+		@Override
+		public Void visit(Operation<?> expr, Set<Path<?>> roots) {
+			expr.getArgs().forEach(arg -> collect(arg, roots));
+			return null;
+		}
+
+		@Override
+		public Void visit(ParamExpression<?> expr, Set<Path<?>> roots) {
+			return null;
+		}
+
+		@Override
+		public Void visit(Path<?> expr, Set<Path<?>> roots) {
+			roots.add(expr.getRoot());
+			return null;
+		}
+
+		@Override
+		public Void visit(SubQueryExpression<?> expr, Set<Path<?>> roots) {
+			QueryMetadata metadata = expr.getMetadata();
+			for (JoinExpression join : metadata.getJoins()) {
+				collect(join.getTarget(), roots);
+				collect(join.getCondition(), roots);
+			}
+			collect(metadata.getWhere(), roots);
+			collect(metadata.getHaving(), roots);
+			collect(metadata.getProjection(), roots);
+			metadata.getGroupBy().forEach(groupBy -> collect(groupBy, roots));
+			return null;
+		}
+
+		@Override
+		public Void visit(TemplateExpression<?> expr, Set<Path<?>> roots) {
+			for (Object arg : expr.getArgs()) {
+				if (arg instanceof Expression) {
+					collect((Expression<?>) arg, roots);
+				}
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,7 @@
+package study.querydsl.repository.support;
+
+/** notified by EntityChangeTracker after rows of an entity's table were written and committed */
+public interface EntityChangeListener {
+
+	void entityChanged(Class<?> entityType);
+}
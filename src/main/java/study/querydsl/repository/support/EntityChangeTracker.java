@@ -0,0 +1,154 @@
+package study.querydsl.repository.support;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.spi.MetamodelImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * watch every SQL statement hibernate sends and tell EntityChangeListeners which entity tables were written
+ * covers em.persist / dirty checking / repository save and bulk update, delete (querydsl or JPQL) alike
+ * inside a transaction listeners are notified after commit, nothing is published on rollback
+ * without spring transaction synchronization ( a hibernate transaction of its own ) they are notified before the statement
+ * runs, and again once that transaction commits : a cache may have kept a read between the two
+ */
+@Component
+public class EntityChangeTracker implements StatementInspector, HibernatePropertiesCustomizer {
+
+	// optional leading comment ( use_sql_comments ), then the written table
+	private static final Pattern WRITE = Pattern.compile(
+			"^\\s*(?:/\\*.*?\\*/\\s*)?(?:insert\\s+into|update|delete\\s+from)\\s+([\\w.]+)",
+			Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+	private final ObjectProvider<EntityManagerFactory> emf;
+	private final ObjectProvider<EntityChangeListener> listenerProvider;
+
+	private final ThreadLocal<Set<Class<?>>> unsynchronized = new ThreadLocal<>(); // written outside spring transactions
+
+	private volatile Map<String, Class<?>> entityTypes; // table name -> entity
+	private volatile List<EntityChangeListener> listeners;
+
+	public EntityChangeTracker(ObjectProvider<EntityManagerFactory> emf, ObjectProvider<EntityChangeListener> listeners) {
+		this.emf = emf;
+		this.listenerProvider = listeners;
+	}
+
+	@Override
+	public void customize(Map<String, Object> hibernateProperties) {
+		StatementInspectors.append(hibernateProperties, this);
+		Object existing = hibernateProperties.putIfAbsent(AvailableSettings.INTERCEPTOR, new EmptyInterceptor() {
+			@Override
+			public void afterTransactionBegin(Transaction tx) {
+				tx.registerSynchronization(new Synchronization() {
+					@Override
+					public void beforeCompletion() {
+					}
+
+					@Override
+					public void afterCompletion(int status) {
+						Set<Class<?>> changed = unsynchronized.get();
+						if (changed != null) {
+							unsynchronized.remove();
+							if (status == Status.STATUS_COMMITTED) {
+								changed.forEach(EntityChangeTracker.this::publish);
+							}
+						}
+					}
+				});
+			}
+		});
+		if (existing != null) {
+			throw new IllegalStateException("session factory interceptor already configured: " + existing);
+		}
+	}
+
+	@Override
+	public String inspect(String sql) {
+		Matcher matcher = WRITE.matcher(sql);
+		if (matcher.lookingAt()) {
+			Class<?> entityType = entityTypes().get(matcher.group(1).toLowerCase(Locale.ROOT));
+			if (entityType != null) {
+				changed(entityType);
+			}
+		}
+		return sql;
+	}
+
+	private void changed(Class<?> entityType) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			publish(entityType);
+			Set<Class<?>> changed = unsynchronized.get();
+			if (changed == null) {
+				changed = new LinkedHashSet<>();
+				unsynchronized.set(changed);
+			}
+			changed.add(entityType);
+			return;
+		}
+		@SuppressWarnings("unchecked")
+		Set<Class<?>> pending = (Set<Class<?>>) TransactionSynchronizationManager.getResource(this);
+		if (pending == null) {
+			Set<Class<?>> changed = new LinkedHashSet<>();
+			TransactionSynchronizationManager.bindResource(this, changed);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(EntityChangeTracker.this);
+					if (status == STATUS_COMMITTED) {
+						changed.forEach(EntityChangeTracker.this::publish);
+					}
+				}
+			});
+			pending = changed;
+		}
+		pending.add(entityType);
+	}
+
+	private void publish(Class<?> entityType) {
+		List<EntityChangeListener> listeners = this.listeners;
+		if (listeners == null) {
+			listeners = listenerProvider.orderedStream().collect(Collectors.toList());
+			this.listeners = listeners;
+		}
+		listeners.forEach(listener -> listener.entityChanged(entityType));
+	}
+
+	private Map<String, Class<?>> entityTypes() {
+		Map<String, Class<?>> entityTypes = this.entityTypes;
+		if (entityTypes == null) {
+			entityTypes = new HashMap<>();
+			MetamodelImplementor metamodel = emf.getObject().unwrap(SessionFactoryImplementor.class).getMetamodel();
+			for (EntityPersister persister : metamodel.entityPersisters().values()) {
+				if (persister instanceof AbstractEntityPersister && persister.getMappedClass() != null) {
+					for (String table : ((AbstractEntityPersister) persister).getConstraintOrderedTableNameClosure()) {
+						entityTypes.put(table.toLowerCase(Locale.ROOT), persister.getMappedClass());
+					}
+				}
+			}
+			this.entityTypes = entityTypes;
+		}
+		return entityTypes;
+	}
+}
@@ -0,0 +1,279 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.group.GroupExpression;
+import com.querydsl.core.types.ConstructorExpression;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionException;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.QBean;
+import com.querydsl.core.util.ConstructorUtils;
+import com.querydsl.core.util.ReflectionUtils;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * drop-in for Projections.bean / fields / constructor without reflection per row
+ * same bindings, validation and JPQL as QBean / ConstructorExpression, only newInstance differs
+ * - no-arg constructor and setters are lambdas ( LambdaMetafactory ), fields and constructors method handles
+ * - built once per dto class and cached
+ *
+ * ex) FastProjections.bean(MemberDto.class, member.username, member.age)
+ */
+public final class FastProjections {
+
+	private static final ClassValue<Accessors> ACCESSORS = new ClassValue<>() {
+		@Override
+		protected Accessors computeValue(Class<?> type) {
+			return new Accessors(type);
+		}
+	};
+
+	private FastProjections() {
+	}
+
+	/** Projections.bean : values through the setters */
+	public static <T> QBean<T> bean(Class<? extends T> type, Expression<?>... exprs) {
+		return new FastBean<>(type, false, bindings(exprs));
+	}
+
+	/** Projections.fields : values straight into the fields */
+	public static <T> QBean<T> fields(Class<? extends T> type, Expression<?>... exprs) {
+		return new FastBean<>(type, true, bindings(exprs));
+	}
+
+	/** Projections.constructor : varargs constructors are left to querydsl */
+	public static <T> ConstructorExpression<T> constructor(Class<? extends T> type, Expression<?>... exprs) {
+		Class<?>[] argumentTypes = new Class<?>[exprs.length];
+		for (int i = 0; i < exprs.length; i++) {
+			argumentTypes[i] = exprs[i].getType();
+		}
+		Class<?>[] parameterTypes = ConstructorUtils.getConstructorParameters(type, argumentTypes); // Integer -> int, ...
+		Constructor<? extends T> constructor;
+		try {
+			constructor = ConstructorUtils.getConstructor(type, parameterTypes);
+		} catch (NoSuchMethodException e) {
+			throw new ExpressionException(e.getMessage(), e);
+		}
+		if (constructor.isVarArgs()) {
+			return Projections.constructor(type, exprs);
+		}
+		return new FastConstructor<>(type, parameterTypes, constructor, exprs);
+	}
+
+	// same property names as QBean : path name or alias, compound expressions bound without the alias
+	private static Map<String, Expression<?>> bindings(Expression<?>... exprs) {
+		Map<String, Expression<?>> bindings = new LinkedHashMap<>(exprs.length);
+		for (Expression<?> expr : exprs) {
+			if (expr instanceof Path<?>) {
+				bindings.put(((Path<?>) expr).getMetadata().getName(), expr);
+			} else if (expr instanceof Operation<?>
+					&& ((Operation<?>) expr).getOperator() == Ops.ALIAS
+					&& ((Operation<?>) expr).getArg(1) instanceof Path<?>) {
+				Operation<?> alias = (Operation<?>) expr;
+				Expression<?> value = alias.getArg(0);
+				boolean compound = value instanceof FactoryExpression<?> || value instanceof GroupExpression<?, ?>;
+				bindings.put(((Path<?>) alias.getArg(1)).getMetadata().getName(), compound ? value : expr);
+			} else {
+				throw new IllegalArgumentException("Unsupported expression " + expr);
+			}
+		}
+		return bindings;
+	}
+
+	private static class FastBean<T> extends QBean<T> {
+
+		private final transient Supplier<Object> factory;
+		private final transient List<BiConsumer<Object, Object>> writers; // null : no such property, skipped like QBean
+
+		FastBean(Class<? extends T> type, boolean fieldAccess, Map<String, Expression<?>> bindings) {
+			super(type, fieldAccess, bindings);
+			Accessors accessors = ACCESSORS.get(type);
+			this.factory = accessors.factory;
+			this.writers = new ArrayList<>(bindings.size());
+			for (String property : bindings.keySet()) {
+				writers.add(fieldAccess ? accessors.field(property) : accessors.setter(property));
+			}
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public T newInstance(Object... a) {
+			T rv = (T) factory.get();
+			for (int i = 0; i < a.length; i++) {
+				BiConsumer<Object, Object> writer = writers.get(i);
+				if (a[i] != null && writer != null) {
+					writer.accept(rv, a[i]);
+				}
+			}
+			return rv;
+		}
+	}
+
+	private static class FastConstructor<T> extends ConstructorExpression<T> {
+
+		private final transient MethodHandle constructor; // (Object[])Object
+		private final transient Object[] primitiveDefaults; // default value of a primitive parameter, null for a reference
+
+		FastConstructor(Class<? extends T> type, Class<?>[] parameterTypes, Constructor<? extends T> constructor, Expression<?>... exprs) {
+			super(type, parameterTypes, exprs);
+			this.constructor = ACCESSORS.get(type).constructor(constructor);
+
+			Class<?>[] declared = constructor.getParameterTypes();
+			this.primitiveDefaults = new Object[declared.length];
+			for (int i = 0; i < declared.length; i++) {
+				if (declared[i].isPrimitive()) {
+					primitiveDefaults[i] = Array.get(Array.newInstance(declared[i], 1), 0);
+				}
+			}
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public T newInstance(Object... args) {
+			// null into a primitive parameter : its default value, like ConstructorExpression
+			for (int i = 0; i < args.length; i++) {
+				if (args[i] == null && primitiveDefaults[i] != null) {
+					args[i] = primitiveDefaults[i];
+				}
+			}
+			try {
+				return (T) (Object) constructor.invokeExact(args);
+			} catch (Throwable e) {
+				throw new ExpressionException(e.getMessage(), e);
+			}
+		}
+	}
+
+	// per dto class : the lookup has private access to it, lambdas are defined next to it
+	private static final class Accessors {
+
+		private final Class<?> type;
+		private final MethodHandles.Lookup lookup;
+		private final Supplier<Object> factory;
+		private final Map<String, BiConsumer<Object, Object>> setters = new ConcurrentHashMap<>();
+		private final Map<String, BiConsumer<Object, Object>> fields = new ConcurrentHashMap<>();
+		private final Map<Constructor<?>, MethodHandle> constructors = new ConcurrentHashMap<>();
+
+		Accessors(Class<?> type) {
+			this.type = type;
+			try {
+				this.lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+			} catch (IllegalAccessException e) {
+				throw new IllegalArgumentException("no access to " + type.getName(), e);
+			}
+			this.factory = factory();
+		}
+
+		@SuppressWarnings("unchecked")
+		private Supplier<Object> factory() {
+			MethodHandle constructor;
+			try {
+				constructor = lookup.findConstructor(type, methodType(void.class));
+			} catch (NoSuchMethodException | IllegalAccessException e) {
+				return () -> {
+					throw new ExpressionException(type.getName() + " has no no-arg constructor", e);
+				};
+			}
+			try {
+				CallSite site = LambdaMetafactory.metafactory(lookup, "get", methodType(Supplier.class),
+						methodType(Object.class), constructor, methodType(type));
+				return (Supplier<Object>) site.getTarget().invokeExact();
+			} catch (Throwable e) {
+				throw new IllegalStateException("no-arg constructor of " + type.getName(), e);
+			}
+		}
+
+		BiConsumer<Object, Object> setter(String property) {
+			return setters.computeIfAbsent(property, this::createSetter);
+		}
+
+		BiConsumer<Object, Object> field(String property) {
+			return fields.computeIfAbsent(property, this::createField);
+		}
+
+		MethodHandle constructor(Constructor<?> constructor) {
+			return constructors.computeIfAbsent(constructor, c -> {
+				try {
+					return lookup.unreflectConstructor(c)
+							.asSpreader(Object[].class, c.getParameterCount())
+							.asType(methodType(Object.class, Object[].class));
+				} catch (IllegalAccessException e) {
+					throw new IllegalArgumentException("no access to " + c, e);
+				}
+			});
+		}
+
+		// write method of the java bean property, as QBean finds it
+		@SuppressWarnings("unchecked")
+		private BiConsumer<Object, Object> createSetter(String property) {
+			Method setter = null;
+			try {
+				for (PropertyDescriptor descriptor : Introspector.getBeanInfo(type).getPropertyDescriptors()) {
+					if (descriptor.getName().equals(property)) {
+						setter = descriptor.getWriteMethod();
+					}
+				}
+			} catch (IntrospectionException e) {
+				throw new IllegalArgumentException(e.getMessage(), e);
+			}
+			if (setter == null) {
+				return null;
+			}
+			try {
+				Class<?> valueType = methodType(setter.getParameterTypes()[0]).wrap().returnType(); // int -> Integer, unboxed by the lambda
+				CallSite site = LambdaMetafactory.metafactory(lookup, "accept", methodType(BiConsumer.class),
+						methodType(void.class, Object.class, Object.class), lookup.unreflect(setter),
+						methodType(void.class, type, valueType));
+				return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+			} catch (Throwable e) {
+				throw new IllegalStateException("setter " + setter, e);
+			}
+		}
+
+		// a lambda can't write a field : a method handle, (Object, Object)void to skip the casts at the call site
+		private BiConsumer<Object, Object> createField(String property) {
+			Field field = ReflectionUtils.getFieldOrNull(type, property);
+			if (field == null) {
+				return null;
+			}
+			MethodHandle handle;
+			try {
+				field.setAccessible(true);
+				handle = MethodHandles.lookup().unreflectSetter(field)
+						.asType(methodType(void.class, Object.class, Object.class));
+			} catch (IllegalAccessException e) {
+				throw new IllegalArgumentException("no access to " + field, e);
+			}
+			return (bean, value) -> {
+				try {
+					handle.invokeExact(bean, value);
+				} catch (Throwable e) {
+					throw new ExpressionException(e.getMessage(), e);
+				}
+			};
+		}
+	}
+}
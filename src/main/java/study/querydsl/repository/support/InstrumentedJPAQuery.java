@@ -0,0 +1,84 @@
+package study.querydsl.repository.support;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * JPAQuery recording latency and rows per query shape
+ * the JPQL is taken from logQuery, which every execution path calls with the serialized query
+ */
+public class InstrumentedJPAQuery<T> extends JPAQuery<T> {
+
+	private final QueryMetrics queryMetrics;
+	private String jpql;
+
+	public InstrumentedJPAQuery(EntityManager em, QueryMetrics queryMetrics) {
+		super(em);
+		this.queryMetrics = queryMetrics;
+	}
+
+	public InstrumentedJPAQuery(EntityManager em, JPQLTemplates templates, QueryMetadata metadata, QueryMetrics queryMetrics) {
+		super(em, templates, metadata);
+		this.queryMetrics = queryMetrics;
+	}
+
+	@Override
+	protected void logQuery(String queryString) {
+		jpql = queryString;
+		super.logQuery(queryString);
+	}
+
+	@Override
+	public List<T> fetch() {
+		long start = System.nanoTime();
+		List<T> result = super.fetch();
+		record(start, result.size());
+		return result;
+	}
+
+	@Override
+	public T fetchOne() throws NonUniqueResultException {
+		long start = System.nanoTime();
+		T result = super.fetchOne();
+		record(start, result != null ? 1 : 0);
+		return result;
+	}
+
+	// time to open the cursor, rows aren't known
+	@Override
+	public Stream<T> stream() {
+		long start = System.nanoTime();
+		Stream<T> result = super.stream();
+		record(start, -1);
+		return result;
+	}
+
+	@Override
+	public CloseableIterator<T> iterate() {
+		long start = System.nanoTime();
+		CloseableIterator<T> result = super.iterate();
+		record(start, -1);
+		return result;
+	}
+
+	// count query on another connection ( MemberRepositoryImpl.countAsync ) stays instrumented
+	@Override
+	public JPAQuery<T> clone(EntityManager entityManager, JPQLTemplates templates) {
+		InstrumentedJPAQuery<T> q = new InstrumentedJPAQuery<>(entityManager, templates, getMetadata().clone(), queryMetrics);
+		q.clone(this);
+		return q;
+	}
+
+	private void record(long start, int rows) {
+		if (jpql != null) {
+			queryMetrics.record(jpql, System.nanoTime() - start, rows);
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import javax.persistence.EntityManager;
+
+/**
+ * JPAQueryFactory whose queries ( select, selectFrom, from ... ) record QueryMetrics
+ * update / delete / insert clauses aren't instrumented
+ */
+public class InstrumentedJPAQueryFactory extends JPAQueryFactory {
+
+	private final EntityManager em;
+	private final QueryMetrics queryMetrics;
+
+	public InstrumentedJPAQueryFactory(EntityManager em, QueryMetrics queryMetrics) {
+		super(em);
+		this.em = em;
+		this.queryMetrics = queryMetrics;
+	}
+
+	@Override
+	public JPAQuery<?> query() {
+		return new InstrumentedJPAQuery<Void>(em, queryMetrics);
+	}
+}
@@ -0,0 +1,218 @@
+package study.querydsl.repository.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * N+1 detector : SQL statements and lazy loads ( proxy / collection initialization ) counted per scope, e.g. an HTTP request
+ * statements are counted on the connection ( hibernate and JdbcTemplate alike ) : connections handed out while a scope is
+ * active are wrapped ( LazyLoadDetectorDataSourcePostProcessor ), the others aren't
+ * a proxy found in the persistence context ( loaded along by batch fetching ) issues no SQL and isn't a lazy load
+ * over max-statements or max-lazy-loads the scope is reported with each association path and the call site that loaded it
+ * action log : warning when the scope ends. action fail : IllegalStateException on the statement / lazy load over the limit
+ */
+@Slf4j
+@Component
+public class LazyLoadDetector implements SmartInitializingSingleton, LoadEventListener, InitializeCollectionEventListener {
+
+	public enum Action {LOG, FAIL}
+
+	private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+	private final ObjectProvider<EntityManagerFactory> emf;
+	private final int maxStatements;
+	private final int maxLazyLoads;
+	private final Action action;
+
+	private final ThreadLocal<Scope> scope = new ThreadLocal<>();
+	private final ConcurrentMap<String, String> associationPaths = new ConcurrentHashMap<>(); // entity -> Owner.association
+
+	public LazyLoadDetector(ObjectProvider<EntityManagerFactory> emf,
+							@Value("${member.lazy-load-detector.max-statements:20}") int maxStatements,
+							@Value("${member.lazy-load-detector.max-lazy-loads:10}") int maxLazyLoads,
+							@Value("${member.lazy-load-detector.action:log}") Action action) {
+		this.emf = emf;
+		this.maxStatements = maxStatements;
+		this.maxLazyLoads = maxLazyLoads;
+		this.action = action;
+	}
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		EventListenerRegistry registry = emf.getObject().unwrap(SessionFactoryImplementor.class)
+				.getServiceRegistry().getService(EventListenerRegistry.class);
+		registry.prependListeners(EventType.LOAD, (LoadEventListener) this::beforeLoad);
+		registry.appendListeners(EventType.LOAD, this);
+		registry.appendListeners(EventType.INIT_COLLECTION, this);
+	}
+
+	public void begin(String name) {
+		scope.set(new Scope(name));
+	}
+
+	/** report if the scope went over a limit, null otherwise */
+	public String end() {
+		Scope current = scope.get();
+		scope.remove();
+		if (current == null || !current.exceeded()) {
+			return null;
+		}
+		String report = current.report();
+		if (action == Action.LOG) {
+			log.warn(report);
+		}
+		return report;
+	}
+
+	public DataSource countStatements(DataSource dataSource) {
+		return SqlTracingDataSource.proxy(DataSource.class, dataSource, (proxy, method, args) -> {
+			Object result = SqlTracingDataSource.invoke(dataSource, method, args);
+			return result instanceof Connection && scope.get() != null ? countStatements((Connection) result) : result;
+		});
+	}
+
+	private Connection countStatements(Connection connection) {
+		return SqlTracingDataSource.proxy(Connection.class, connection, (proxy, method, args) -> {
+			String name = method.getName();
+			if (name.startsWith("prepare") || name.equals("createStatement")) {
+				statement();
+			}
+			return SqlTracingDataSource.invoke(connection, method, args);
+		});
+	}
+
+	private void statement() {
+		Scope current = scope.get();
+		if (current != null) {
+			current.statements++;
+			check(current);
+		}
+	}
+
+	private void beforeLoad(LoadEvent event, LoadType loadType) {
+		Scope current = scope.get();
+		if (current != null && loadType == LoadEventListener.IMMEDIATE_LOAD) {
+			current.loadStarts.push(current.statements);
+		}
+	}
+
+	// proxy initialization ( Member.team ) that went to the database
+	@Override
+	public void onLoad(LoadEvent event, LoadType loadType) throws HibernateException {
+		Scope current = scope.get();
+		if (current != null && loadType == LoadEventListener.IMMEDIATE_LOAD) {
+			Integer start = current.loadStarts.poll();
+			if (start != null && current.statements > start) {
+				current.lazyLoad(associationPath(event.getEntityClassName()));
+				check(current);
+			}
+		}
+	}
+
+	// collection initialization ( Team.members )
+	@Override
+	public void onInitializeCollection(InitializeCollectionEvent event) throws HibernateException {
+		Scope current = scope.get();
+		if (current != null) {
+			current.lazyLoad(shortName(event.getCollection().getRole()));
+			check(current);
+		}
+	}
+
+	private void check(Scope current) {
+		if (action == Action.FAIL && current.exceeded()) {
+			scope.remove(); // reported once
+			throw new IllegalStateException(current.report());
+		}
+	}
+
+	// associations that may hold a proxy of the entity
+	private String associationPath(String entityName) {
+		return associationPaths.computeIfAbsent(entityName, name -> {
+			List<String> paths = new ArrayList<>();
+			for (EntityType<?> entity : emf.getObject().getMetamodel().getEntities()) {
+				for (SingularAttribute<?, ?> attribute : entity.getSingularAttributes()) {
+					if (attribute.isAssociation() && attribute.getJavaType().getName().equals(name)) {
+						paths.add(entity.getName() + "." + attribute.getName());
+					}
+				}
+			}
+			return paths.isEmpty() ? shortName(name) : String.join(" | ", paths);
+		});
+	}
+
+	// study.querydsl.entity.Team.members -> Team.members
+	private static String shortName(String name) {
+		int dot = name.lastIndexOf('.');
+		int previous = dot > 0 ? name.lastIndexOf('.', dot - 1) : -1;
+		return Character.isUpperCase(name.charAt(previous + 1)) ? name.substring(previous + 1) : name.substring(dot + 1);
+	}
+
+	// first application frame, skipping the detector and hibernate proxies
+	private static String callSite() {
+		return STACK_WALKER.walk(frames -> frames
+				.filter(frame -> frame.getClassName().startsWith("study.querydsl.")
+						&& !frame.getClassName().equals(LazyLoadDetector.class.getName())
+						&& !frame.getClassName().startsWith(LazyLoadDetector.class.getName() + "$")
+						&& !frame.getClassName().contains("$HibernateProxy$"))
+				.findFirst()
+				.map(frame -> frame.toStackTraceElement().toString())
+				.orElse("unknown"));
+	}
+
+	private class Scope {
+
+		final String name;
+		int statements;
+		int lazyLoads;
+		final Deque<Integer> loadStarts = new ArrayDeque<>(); // statements when each pending proxy initialization began
+		final Map<String, Integer> sites = new LinkedHashMap<>(); // "path at call site" -> loads
+
+		Scope(String name) {
+			this.name = name;
+		}
+
+		void lazyLoad(String path) {
+			lazyLoads++;
+			sites.merge(path + " at " + callSite(), 1, Integer::sum);
+		}
+
+		boolean exceeded() {
+			return statements > maxStatements || lazyLoads > maxLazyLoads;
+		}
+
+		String report() {
+			return String.format("N+1 suspected in %s : %d statements (max %d), %d lazy loads (max %d)%s",
+					name, statements, maxStatements, lazyLoads, maxLazyLoads,
+					sites.entrySet().stream()
+							.map(site -> "\n  " + site.getKey() + " x" + site.getValue())
+							.collect(Collectors.joining()));
+		}
+	}
+}
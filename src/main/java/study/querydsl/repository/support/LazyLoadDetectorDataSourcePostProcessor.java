@@ -0,0 +1,23 @@
+package study.querydsl.repository.support;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+// statements counted per LazyLoadDetector scope, whoever runs them ( hibernate, JdbcTemplate )
+@Component
+public class LazyLoadDetectorDataSourcePostProcessor implements BeanPostProcessor {
+
+	private final ObjectProvider<LazyLoadDetector> lazyLoadDetector;
+
+	public LazyLoadDetectorDataSourcePostProcessor(ObjectProvider<LazyLoadDetector> lazyLoadDetector) {
+		this.lazyLoadDetector = lazyLoadDetector;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		return bean instanceof DataSource ? lazyLoadDetector.getObject().countStatements((DataSource) bean) : bean;
+	}
+}
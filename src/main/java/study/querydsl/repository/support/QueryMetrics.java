@@ -0,0 +1,98 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * latency, rows and calls per query shape : JPQL with literals removed
+ * querydsl binds constants as parameters already, so literals only come from templates / string expressions
+ * meters : querydsl.query{shape} (timer, p50 / p95 / p99), querydsl.query.rows{shape}
+ * per call : one map lookup by the JPQL string querydsl built anyway, shapes are normalized once
+ */
+@Component
+public class QueryMetrics {
+
+	static final String LATENCY = "querydsl.query";
+	static final String ROWS = "querydsl.query.rows";
+	static final String OTHER = "other"; // shapes over max-shapes
+
+	private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+	private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w?:.])-?\\d+(?:\\.\\d+)?[LlDdFf]?\\b");
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	private final MeterRegistry meterRegistry;
+	private final int maxShapes;
+	private final ConcurrentMap<String, Meters> byJpql = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Meters> byShape = new ConcurrentHashMap<>();
+
+	public QueryMetrics(MeterRegistry meterRegistry,
+						@Value("${member.query-metrics.max-shapes:200}") int maxShapes) {
+		this.meterRegistry = meterRegistry;
+		this.maxShapes = maxShapes;
+	}
+
+	/** rows < 0 : unknown ( stream, iterate ) */
+	public void record(String jpql, long nanos, int rows) {
+		Meters meters = byJpql.get(jpql);
+		if (meters == null) {
+			meters = register(jpql);
+		}
+		meters.latency.record(nanos, TimeUnit.NANOSECONDS);
+		if (rows >= 0) {
+			meters.rows.record(rows);
+		}
+	}
+
+	public Collection<Meters> shapes() {
+		return new ArrayList<>(byShape.values());
+	}
+
+	static String normalize(String jpql) {
+		String shape = STRING_LITERAL.matcher(jpql).replaceAll("?");
+		shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+		return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+	}
+
+	private Meters register(String jpql) {
+		if (byJpql.size() >= maxShapes) {
+			return byShape.computeIfAbsent(OTHER, this::meters); // not remembered by JPQL : the map stays bounded
+		}
+		Meters meters = byShape.computeIfAbsent(normalize(jpql), this::meters);
+		byJpql.putIfAbsent(jpql, meters);
+		return meters;
+	}
+
+	private Meters meters(String shape) {
+		Timer latency = Timer.builder(LATENCY)
+				.tag("shape", shape)
+				.publishPercentiles(0.5, 0.95, 0.99)
+				.register(meterRegistry);
+		DistributionSummary rows = DistributionSummary.builder(ROWS)
+				.tag("shape", shape)
+				.register(meterRegistry);
+		return new Meters(shape, latency, rows);
+	}
+
+	public static class Meters {
+
+		final String shape;
+		final Timer latency;
+		final DistributionSummary rows;
+
+		Meters(String shape, Timer latency, DistributionSummary rows) {
+			this.shape = shape;
+			this.latency = latency;
+			this.rows = rows;
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * /actuator/queries : query shapes by total time, percentiles over micrometer's sliding window ( 2 min by default )
+ */
+@Component
+@Endpoint(id = "queries")
+@RequiredArgsConstructor
+public class QueryMetricsEndpoint {
+
+	private final QueryMetrics queryMetrics;
+
+	@ReadOperation
+	public List<QueryStats> queries() {
+		return queryMetrics.shapes().stream()
+				.map(QueryStats::new)
+				.sorted(Comparator.comparingDouble(QueryStats::getTotalMs).reversed())
+				.collect(Collectors.toList());
+	}
+
+	@Getter
+	public static class QueryStats {
+
+		private final String shape;
+		private final long calls;
+		private final double totalMs;
+		private final double meanMs;
+		private final double maxMs;
+		private final Map<String, Double> percentilesMs = new LinkedHashMap<>();
+		private final double meanRows;
+		private final double maxRows;
+
+		QueryStats(QueryMetrics.Meters meters) {
+			HistogramSnapshot latency = meters.latency.takeSnapshot();
+			this.shape = meters.shape;
+			this.calls = latency.count();
+			this.totalMs = latency.total(TimeUnit.MILLISECONDS);
+			this.meanMs = latency.mean(TimeUnit.MILLISECONDS);
+			this.maxMs = latency.max(TimeUnit.MILLISECONDS);
+			for (ValueAtPercentile percentile : latency.percentileValues()) {
+				percentilesMs.put("p" + Math.round(percentile.percentile() * 100), percentile.value(TimeUnit.MILLISECONDS));
+			}
+			this.meanRows = meters.rows.mean();
+			this.maxRows = meters.rows.max();
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.FactoryExpressionUtils;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * querydsl query serialized to JPQL once, with ParamExpression placeholders
+ * per call only the values are bound : no expression tree, no serialization, hibernate's plan cache hit by the same string
+ */
+public final class QueryTemplate<T> {
+
+	private static final int NO_SLOT = -1;
+
+	private final String jpql;
+	private final Object[] constants;           // ?1..?n : constant of the query, null where a value is bound per call
+	private final int[] slots;                  // ?1..?n : index of the value bound per call, NO_SLOT for a constant
+	private final FactoryExpression<T> projection; // null if the projection isn't a FactoryExpression (entity, single column)
+
+	private QueryTemplate(String jpql, Object[] constants, int[] slots, FactoryExpression<T> projection) {
+		this.jpql = jpql;
+		this.constants = constants;
+		this.slots = slots;
+		this.projection = projection;
+	}
+
+	/** params : order of the values given to createQuery / fetch. limit, offset and hints aren't part of the template */
+	@SuppressWarnings("unchecked")
+	public static <T> QueryTemplate<T> compile(JPQLTemplates templates, JPAQuery<T> query, ParamExpression<?>... params) {
+		if (query.getMetadata().getModifiers().isRestricting()) {
+			throw new IllegalArgumentException("limit / offset aren't part of the template");
+		}
+		JPQLSerializer serializer = new JPQLSerializer(templates);
+		serializer.serialize(query.getMetadata(), false, null);
+
+		List<ParamExpression<?>> order = Arrays.asList(params);
+		Object[] constants = serializer.getConstants().toArray();
+		int[] slots = new int[constants.length];
+		for (int i = 0; i < constants.length; i++) {
+			slots[i] = NO_SLOT;
+			if (constants[i] instanceof ParamExpression) {
+				int index = order.indexOf(constants[i]);
+				if (index < 0) {
+					throw new IllegalArgumentException("no value for param: " + constants[i]);
+				}
+				slots[i] = index;
+				constants[i] = null;
+			}
+		}
+
+		Expression<?> select = query.getMetadata().getProjection();
+		FactoryExpression<T> projection = select instanceof FactoryExpression
+				? FactoryExpressionUtils.wrap((FactoryExpression<T>) select)
+				: null;
+		return new QueryTemplate<>(serializer.toString(), constants, slots, projection);
+	}
+
+	public String getJpql() {
+		return jpql;
+	}
+
+	public Query createQuery(EntityManager em, Object... values) {
+		Query query = em.createQuery(jpql);
+		for (int i = 0; i < constants.length; i++) {
+			query.setParameter(i + 1, slots[i] == NO_SLOT ? constants[i] : values[slots[i]]);
+		}
+		return query;
+	}
+
+	@SuppressWarnings("unchecked")
+	public List<T> fetch(EntityManager em, Object... values) {
+		List<?> rows = createQuery(em, values).getResultList();
+		if (projection == null) {
+			return (List<T>) rows;
+		}
+		List<T> results = new ArrayList<>(rows.size());
+		for (Object row : rows) {
+			results.add(projection.newInstance(row instanceof Object[] ? (Object[]) row : new Object[]{row}));
+		}
+		return results;
+	}
+}
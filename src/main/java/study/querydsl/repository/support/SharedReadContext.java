@@ -0,0 +1,18 @@
+package study.querydsl.repository.support;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * whether a read may be shared with other requests or run on another connection
+ * not inside a read-write transaction : its uncommitted rows are visible only to itself
+ */
+public final class SharedReadContext {
+
+	private SharedReadContext() {
+	}
+
+	public static boolean isActive() {
+		return !TransactionSynchronizationManager.isActualTransactionActive()
+				|| TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+	}
+}
@@ -0,0 +1,69 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * single flight : concurrent calls with the same key share one execution
+ * the first caller runs it, callers arriving while it runs wait for its result ( or its exception )
+ * nothing is kept once it completes, the next call runs again ( caching is MemberSearchCache / MemberCountCache )
+ * metrics : singleflight.calls{name, result=executed|shared}, coalescing ratio = shared / (executed + shared)
+ */
+public class SingleFlight<K, V> {
+
+	private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+	private final Counter executed;
+	private final Counter shared;
+
+	public SingleFlight(MeterRegistry meterRegistry, String name) {
+		this.executed = Counter.builder("singleflight.calls")
+				.tag("name", name)
+				.tag("result", "executed")
+				.register(meterRegistry);
+		this.shared = Counter.builder("singleflight.calls")
+				.tag("name", name)
+				.tag("result", "shared")
+				.register(meterRegistry);
+	}
+
+	public V execute(K key, Supplier<V> call) {
+		CompletableFuture<V> flight = new CompletableFuture<>();
+		CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+		if (running != null) {
+			shared.increment();
+			return await(running);
+		}
+
+		executed.increment();
+		try {
+			V value = call.get();
+			flight.complete(value);
+			return value;
+		} catch (RuntimeException | Error e) {
+			flight.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, flight);
+		}
+	}
+
+	private static <V> V await(CompletableFuture<V> flight) {
+		try {
+			return flight.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+}
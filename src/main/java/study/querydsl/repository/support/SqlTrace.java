@@ -0,0 +1,38 @@
+package study.querydsl.repository.support;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.regex.Pattern;
+
+@Getter
+public class SqlTrace {
+
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	private final long sequence;
+	private final String time;
+	private final String thread;
+	private final double elapsedMs;
+	private final String sql;
+	private final List<String> params;
+	private final int batch; // statements in the jdbc batch, 0 if not batched
+
+	SqlTrace(long sequence, Instant time, String thread, long elapsedNanos, String sql, List<String> params, int batch) {
+		this.sequence = sequence;
+		this.time = time.toString();
+		this.thread = thread;
+		this.elapsedMs = elapsedNanos / 1_000_000.0;
+		this.sql = sql;
+		this.params = params;
+		this.batch = batch;
+	}
+
+	// one line per statement : ddl comes formatted ( format_sql )
+	@Override
+	public String toString() {
+		return String.format("%.3f ms%s | %s | %s",
+				elapsedMs, batch > 0 ? " batch " + batch : "", WHITESPACE.matcher(sql).replaceAll(" ").trim(), params);
+	}
+}
@@ -0,0 +1,34 @@
+package study.querydsl.repository.support;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * /actuator/sqltrace : the ring buffer of SqlTracer, oldest first
+ */
+@Component
+@Endpoint(id = "sqltrace")
+@RequiredArgsConstructor
+public class SqlTraceEndpoint {
+
+	private final SqlTracer sqlTracer;
+
+	@ReadOperation
+	public SqlTraceReport sqltrace() {
+		return new SqlTraceReport(sqlTracer.getMode(), sqlTracer.getLogDropped(), sqlTracer.recent());
+	}
+
+	@Getter
+	@RequiredArgsConstructor
+	public static class SqlTraceReport {
+
+		private final SqlTracer.Mode mode;
+		private final long logDropped;
+		private final List<SqlTrace> traces;
+	}
+}
@@ -0,0 +1,137 @@
+package study.querydsl.repository.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * sql tracing instead of p6spy / org.hibernate.SQL debug logging
+ * - off     : the DataSource isn't wrapped at all
+ * - sampled : 1 in sample-rate connections ( a transaction's statements ) is traced, the others are handed out unwrapped
+ * - slow    : every statement is timed, traced if it took slow-threshold or more. every connection and statement is a proxy
+ * traces go to a ring buffer ( /actuator/sqltrace ) and are formatted and logged on another thread
+ */
+@Slf4j
+@Component
+public class SqlTracer implements DisposableBean {
+
+	public enum Mode {OFF, SAMPLED, SLOW}
+
+	private final Mode mode;
+	private final int sampleRate;
+	private final long slowThresholdNanos;
+
+	private final AtomicLong statements = new AtomicLong();
+	private final AtomicLong sequence = new AtomicLong();
+	private final AtomicReferenceArray<SqlTrace> buffer;
+	private final BlockingQueue<SqlTrace> logQueue;
+	private final AtomicLong logDropped = new AtomicLong();
+	private final Thread logger;
+
+	public SqlTracer(@Value("${member.sql-trace.mode:off}") Mode mode,
+					 @Value("${member.sql-trace.sample-rate:100}") int sampleRate,
+					 @Value("${member.sql-trace.slow-threshold:200ms}") Duration slowThreshold,
+					 @Value("${member.sql-trace.buffer-size:1000}") int bufferSize) {
+		if (sampleRate < 1) {
+			throw new IllegalArgumentException("sample-rate must be positive: " + sampleRate);
+		}
+		this.mode = mode;
+		this.sampleRate = sampleRate;
+		this.slowThresholdNanos = slowThreshold.toNanos();
+		this.buffer = new AtomicReferenceArray<>(bufferSize);
+		this.logQueue = new ArrayBlockingQueue<>(bufferSize);
+		this.logger = new Thread(this::log, "sql-trace");
+		this.logger.setDaemon(true);
+		if (mode != Mode.OFF) {
+			this.logger.start();
+		}
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	public long getLogDropped() {
+		return logDropped.get();
+	}
+
+	/** whether a connection being handed out is traced */
+	boolean traces() {
+		switch (mode) {
+			case SLOW:
+				return true;
+			case SAMPLED:
+				return statements.incrementAndGet() % sampleRate == 0;
+			default:
+				return false;
+		}
+	}
+
+	void executed(String sql, Object[] params, int paramCount, long elapsedNanos, int batch) {
+		if (mode == Mode.SLOW && elapsedNanos < slowThresholdNanos) {
+			return;
+		}
+		List<String> rendered = new ArrayList<>(paramCount);
+		for (int i = 0; i < paramCount; i++) {
+			rendered.add(render(params[i]));
+		}
+		long seq = sequence.getAndIncrement();
+		SqlTrace trace = new SqlTrace(seq, Instant.now(), Thread.currentThread().getName(), elapsedNanos, sql, rendered, batch);
+		buffer.set((int) (seq % buffer.length()), trace);
+		if (!logQueue.offer(trace)) {
+			logDropped.incrementAndGet(); // logger behind : still in the ring buffer
+		}
+	}
+
+	/** oldest first */
+	public List<SqlTrace> recent() {
+		List<SqlTrace> traces = new ArrayList<>(buffer.length());
+		for (int i = 0; i < buffer.length(); i++) {
+			SqlTrace trace = buffer.get(i);
+			if (trace != null) {
+				traces.add(trace);
+			}
+		}
+		traces.sort(Comparator.comparingLong(SqlTrace::getSequence));
+		return traces;
+	}
+
+	private static String render(Object param) {
+		if (param == null) {
+			return "null";
+		}
+		if (param instanceof String) {
+			return "'" + param + "'";
+		}
+		if (param instanceof byte[]) {
+			return "byte[" + ((byte[]) param).length + "]";
+		}
+		return String.valueOf(param);
+	}
+
+	private void log() {
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				log.info("{}", logQueue.take());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public void destroy() {
+		logger.interrupt();
+	}
+}
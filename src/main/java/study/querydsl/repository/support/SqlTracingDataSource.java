@@ -0,0 +1,115 @@
+package study.querydsl.repository.support;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * jdbc proxies for SqlTracer : DataSource -> traced connections only -> their statements
+ * a connection that isn't traced is handed out unwrapped, so sampling costs one counter increment per connection
+ */
+public final class SqlTracingDataSource {
+
+	private SqlTracingDataSource() {
+	}
+
+	public static DataSource wrap(DataSource dataSource, SqlTracer tracer) {
+		return proxy(DataSource.class, dataSource, (proxy, method, args) -> {
+			Object result = invoke(dataSource, method, args);
+			return result instanceof Connection && tracer.traces() ? connection((Connection) result, tracer) : result;
+		});
+	}
+
+	private static Connection connection(Connection connection, SqlTracer tracer) {
+		return proxy(Connection.class, connection, (proxy, method, args) -> {
+			Object result = invoke(connection, method, args);
+			if (!(result instanceof Statement)) {
+				return result;
+			}
+			String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+			Class<? extends Statement> type = result instanceof CallableStatement ? CallableStatement.class
+					: result instanceof PreparedStatement ? PreparedStatement.class
+					: Statement.class;
+			return proxy(type, result, new TracedStatement((Statement) result, sql, tracer));
+		});
+	}
+
+	private static class TracedStatement implements InvocationHandler {
+
+		private final Statement statement;
+		private final String sql;
+		private final SqlTracer tracer;
+		private Object[] params = new Object[8];
+		private int paramCount;
+		private int batch;
+
+		TracedStatement(Statement statement, String sql, SqlTracer tracer) {
+			this.statement = statement;
+			this.sql = sql;
+			this.tracer = tracer;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (name.startsWith("execute")) {
+				long start = System.nanoTime();
+				Object result = SqlTracingDataSource.invoke(statement, method, args);
+				String executed = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+				tracer.executed(executed, params, paramCount, System.nanoTime() - start, batch);
+				if (name.endsWith("Batch")) {
+					batch = 0;
+				}
+				return result;
+			}
+			if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+				param((Integer) args[0], name.equals("setNull") ? null : args[1]);
+			} else if (name.equals("addBatch")) {
+				batch++;
+			} else if (name.equals("clearParameters")) {
+				paramCount = 0;
+			}
+			return SqlTracingDataSource.invoke(statement, method, args);
+		}
+
+		private void param(int index, Object value) {
+			if (index > params.length) {
+				params = Arrays.copyOf(params, Math.max(index, params.length * 2));
+			}
+			params[index - 1] = value;
+			paramCount = Math.max(paramCount, index);
+		}
+	}
+
+	// also LazyLoadDetector's statement counting
+	@SuppressWarnings("unchecked")
+	static <T> T proxy(Class<T> type, Object target, InvocationHandler handler) {
+		return (T) Proxy.newProxyInstance(SqlTracingDataSource.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "traced " + target;
+				default:
+					return handler.invoke(proxy, method, args);
+			}
+		});
+	}
+
+	static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
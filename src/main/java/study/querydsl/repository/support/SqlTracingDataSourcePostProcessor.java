@@ -0,0 +1,27 @@
+package study.querydsl.repository.support;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+// wraps the DataSource unless member.sql-trace.mode is off
+@Component
+public class SqlTracingDataSourcePostProcessor implements BeanPostProcessor {
+
+	private final ObjectProvider<SqlTracer> sqlTracer;
+
+	public SqlTracingDataSourcePostProcessor(ObjectProvider<SqlTracer> sqlTracer) {
+		this.sqlTracer = sqlTracer;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (!(bean instanceof DataSource)) {
+			return bean;
+		}
+		SqlTracer tracer = sqlTracer.getObject();
+		return tracer.getMode() == SqlTracer.Mode.OFF ? bean : SqlTracingDataSource.wrap((DataSource) bean, tracer);
+	}
+}
@@ -0,0 +1,30 @@
+package study.querydsl.repository.support;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Map;
+
+/**
+ * hibernate takes a single StatementInspector : inspectors registered by HibernatePropertiesCustomizers are chained
+ */
+public final class StatementInspectors {
+
+	private StatementInspectors() {
+	}
+
+	public static void append(Map<String, Object> hibernateProperties, StatementInspector inspector) {
+		Object existing = hibernateProperties.get(AvailableSettings.STATEMENT_INSPECTOR);
+		if (existing instanceof StatementInspector) {
+			StatementInspector first = (StatementInspector) existing;
+			hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+				String inspected = first.inspect(sql);
+				return inspector.inspect(inspected != null ? inspected : sql);
+			});
+		} else if (existing == null) {
+			hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+		} else {
+			throw new IllegalStateException("statement inspector configured as class name: " + existing);
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package study.querydsl.repository.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * row count estimated by the database from its table statistics, without scanning the table
+ * the statement depends on the database (member.search.count.estimate-sql), ex)
+ * - H2         : select ROW_COUNT_ESTIMATE from INFORMATION_SCHEMA.TABLES where TABLE_NAME = upper(?1)
+ * - PostgreSQL : select reltuples::bigint from pg_class where relname = ?1
+ * - MySQL      : select TABLE_ROWS from information_schema.TABLES where TABLE_SCHEMA = database() and TABLE_NAME = ?1
+ */
+@Component
+public class TableStatistics {
+
+	@PersistenceContext
+	private EntityManager em;
+
+	private final String estimateSql;
+
+	public TableStatistics(@Value("${member.search.count.estimate-sql:select ROW_COUNT_ESTIMATE from INFORMATION_SCHEMA.TABLES where TABLE_NAME = upper(?1)}") String estimateSql) {
+		this.estimateSql = estimateSql;
+	}
+
+	public long estimateRowCount(String table) {
+		Number estimate = (Number) em.createNativeQuery(estimateSql)
+				.setParameter(1, table)
+				.getSingleResult();
+		return Math.max(estimate.longValue(), 0);
+	}
+}
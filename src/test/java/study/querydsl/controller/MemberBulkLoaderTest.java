@@ -0,0 +1,43 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class MemberBulkLoaderTest {
+
+	@Autowired EntityManager em;
+	@Autowired MemberBulkLoader memberBulkLoader;
+
+	@Test
+	public void load() {
+		double rowsPerSecond = memberBulkLoader.load(250, 50);
+
+		assertThat(rowsPerSecond).isPositive();
+		assertThat(em.createQuery("select count(m) from Member m", Long.class).getSingleResult()).isEqualTo(250);
+		assertThat(em.createQuery("select count(t) from Team t", Long.class).getSingleResult()).isEqualTo(5);
+
+		Member last = em.createQuery("select m from Member m where m.username = 'member249'", Member.class).getSingleResult();
+		assertThat(last.getTeam().getName()).isEqualTo("team4");
+		assertThat(em.createQuery("select count(m) from Member m where m.team = :team", Long.class)
+				.setParameter("team", last.getTeam())
+				.getSingleResult()).isEqualTo(50);
+	}
+
+	@Test
+	public void teamFanOutAtLeastOne() {
+		assertThatThrownBy(() -> memberBulkLoader.load(10, 0))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("team fan-out must be at least 1: 0");
+	}
+}
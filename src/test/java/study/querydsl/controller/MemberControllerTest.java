@@ -0,0 +1,56 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberControllerTest {
+
+	@Autowired MockMvc mockMvc;
+
+	// InvalidSearchException from the repository or the controller : 400 with its message
+	@Test
+	public void rejectedSortIsBadRequest() throws Exception {
+		mockMvc.perform(get("/v2/members").param("sort", "team"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message").value(startsWith("unsupported sort property: team")));
+
+		mockMvc.perform(get("/v2/members").param("sort", "username,desc"))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	public void malformedCursorIsBadRequest() throws Exception {
+		mockMvc.perform(get("/v2/members/keyset").param("cursor", "not-a-cursor"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message").value("invalid cursor: not-a-cursor"));
+	}
+
+	@Test
+	public void tooManyIdsIsBadRequest() throws Exception {
+		String ids = LongStream.rangeClosed(1, 1001).mapToObj(String::valueOf).collect(Collectors.joining(",", "[", "]"));
+		mockMvc.perform(post("/v1/members/by-ids").contentType(MediaType.APPLICATION_JSON).content(ids))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message").value("at most 1000 ids: 1001"));
+	}
+
+	@Test
+	public void batchWithoutFilterIsBadRequest() throws Exception {
+		mockMvc.perform(post("/v1/members/batch").contentType(MediaType.APPLICATION_JSON).content("[{\"teamName\": \"teamA\"}, {}]"))
+				.andExpect(status().isBadRequest());
+	}
+}
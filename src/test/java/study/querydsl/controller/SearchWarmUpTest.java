@@ -0,0 +1,37 @@
+package study.querydsl.controller;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberSearchTemplates;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"member.search.warm-up=true", "member.search.count-cache.ttl=0s"})
+class SearchWarmUpTest {
+
+	@Autowired EntityManagerFactory emf;
+	@Autowired MemberSearchTemplates memberSearchTemplates;
+	@Autowired MemberRepository memberRepository;
+
+	@Test
+	public void noQueryPlanParsedAfterWarmUp() {
+		Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		for (MemberSearchCondition condition : MemberSearchTemplates.allShapes()) {
+			memberSearchTemplates.search(condition);
+			memberRepository.searchPage(condition, PageRequest.of(1, 10)); // empty page after the first : counts
+		}
+
+		assertThat(statistics.getQueryExecutionCount()).isEqualTo(16 * 3);
+		assertThat(statistics.getQueryPlanCacheMissCount()).isZero();
+	}
+}
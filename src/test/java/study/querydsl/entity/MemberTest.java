@@ -1,5 +1,7 @@
 package study.querydsl.entity;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -11,6 +13,7 @@ import javax.persistence.Entity;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -54,4 +57,50 @@ class MemberTest {
 		}
 
 	}
-}
\ No newline at end of file
+
+	// default_batch_fetch_size 100 : 1,000 members across 50 teams
+	@Test
+	public void batchFetchTeamOfMembers() {
+		Statistics statistics = persistMembersAcrossTeams(1000, 50);
+
+		List<Member> members = em.createQuery("select m from Member m", Member.class).getResultList();
+		for (Member member : members) {
+			member.getTeam().getName();
+		}
+
+		assertEquals(1000, members.size());
+		assertEquals(1 + 1, statistics.getPrepareStatementCount()); // members, teams in one in-list instead of 50 selects
+	}
+
+	@Test
+	public void batchFetchMembersOfTeams() {
+		Statistics statistics = persistMembersAcrossTeams(1000, 50);
+
+		List<Team> teams = em.createQuery("select t from Team t", Team.class).getResultList();
+		int members = 0;
+		for (Team team : teams) {
+			members += team.getMembers().size();
+		}
+
+		assertEquals(1000, members);
+		assertEquals(1 + 1, statistics.getPrepareStatementCount()); // teams, members of all 50 teams in one in-list
+	}
+
+	private Statistics persistMembersAcrossTeams(int memberCount, int teamCount) {
+		List<Team> teams = new ArrayList<>();
+		for (int i = 0; i < teamCount; i++) {
+			Team team = new Team("team" + i);
+			em.persist(team);
+			teams.add(team);
+		}
+		for (int i = 0; i < memberCount; i++) {
+			em.persist(new Member("member" + i, i % 100, teams.get(i % teamCount)));
+		}
+		em.flush();
+		em.clear();
+
+		Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		return statistics;
+	}
+}
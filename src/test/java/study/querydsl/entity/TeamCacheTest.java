@@ -0,0 +1,70 @@
+package study.querydsl.entity;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// committed data : read-write regions are filled after commit
+@SpringBootTest
+class TeamCacheTest {
+
+	@Autowired EntityManager em;
+	@Autowired EntityManagerFactory emf;
+	@Autowired TransactionTemplate transactionTemplate;
+
+	Statistics statistics;
+	Long memberId;
+
+	@BeforeEach
+	public void before() {
+		memberId = transactionTemplate.execute(status -> {
+			Team teamA = new Team("teamA");
+			em.persist(teamA);
+			Member member1 = new Member("member1", 10, teamA);
+			em.persist(member1);
+			return member1.getId();
+		});
+		emf.getCache().evictAll();
+		statistics = emf.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@AfterEach
+	public void cleanUp() {
+		transactionTemplate.executeWithoutResult(status -> {
+			em.createQuery("delete from Member").executeUpdate();
+			em.createQuery("delete from Team").executeUpdate();
+		});
+	}
+
+	@Test
+	public void lazyTeamFromSecondLevelCache() {
+		String first = transactionTemplate.execute(status -> em.find(Member.class, memberId).getTeam().getName());
+		String second = transactionTemplate.execute(status -> em.find(Member.class, memberId).getTeam().getName());
+
+		assertThat(second).isEqualTo(first);
+		assertThat(statistics.getSecondLevelCacheMissCount()).isEqualTo(1);
+		assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+		assertThat(statistics.getEntityLoadCount()).isEqualTo(3); // member, team, member : second team from cache
+	}
+
+	@Test
+	public void bulkUpdateEvictsRegion() {
+		transactionTemplate.executeWithoutResult(status -> em.find(Member.class, memberId).getTeam().getName());
+		transactionTemplate.executeWithoutResult(status ->
+				em.createQuery("update Team t set t.name = 'teamB'").executeUpdate());
+
+		String name = transactionTemplate.execute(status -> em.find(Member.class, memberId).getTeam().getName());
+		assertThat(name).isEqualTo("teamB");
+	}
+}
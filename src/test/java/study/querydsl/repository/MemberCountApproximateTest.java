@@ -0,0 +1,54 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.CountedPage;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "member.search.count.approximate=true")
+class MemberCountApproximateTest {
+
+	@Autowired EntityManager em;
+	@Autowired MemberRepository memberRepository;
+	@Autowired TransactionTemplate transactionTemplate;
+
+	@AfterEach
+	public void cleanUp() {
+		transactionTemplate.executeWithoutResult(status -> em.createQuery("delete from Member").executeUpdate());
+	}
+
+	@Test
+	public void unfilteredTotalIsEstimated() {
+		transactionTemplate.executeWithoutResult(status -> {
+			for (int i = 0; i < 5; i++) {
+				em.persist(new Member("member" + i, i));
+			}
+		});
+
+		Page<MemberTeamDto> unfiltered = memberRepository.searchPage(new MemberSearchCondition(), PageRequest.of(0, 2));
+		assertThat(unfiltered.getTotalElements()).isEqualTo(5);
+		assertThat(((CountedPage<MemberTeamDto>) unfiltered).isTotalApproximate()).isTrue();
+
+		// filtered : counted
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setAgeGoe(1);
+		Page<MemberTeamDto> filtered = memberRepository.searchPage(condition, PageRequest.of(0, 2));
+		assertThat(filtered.getTotalElements()).isEqualTo(4);
+		assertThat(((CountedPage<MemberTeamDto>) filtered).isTotalApproximate()).isFalse();
+
+		// total known from the page itself : nothing estimated
+		Page<MemberTeamDto> whole = memberRepository.searchPage(new MemberSearchCondition(), PageRequest.of(0, 10));
+		assertThat(((CountedPage<MemberTeamDto>) whole).isTotalApproximate()).isFalse();
+	}
+}
@@ -0,0 +1,119 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.CountedPage;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.TableStatistics;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// committed data : count cache is bypassed inside read-write transactions
+@SpringBootTest
+class MemberCountCacheTest {
+
+	@Autowired EntityManager em;
+	@Autowired EntityManagerFactory emf;
+	@Autowired MemberRepository memberRepository;
+	@Autowired MemberJpaRepository memberJpaRepository;
+	@Autowired MemberCountCache countCache;
+	@Autowired TableStatistics tableStatistics;
+	@Autowired TransactionTemplate transactionTemplate;
+
+	@AfterEach
+	public void cleanUp() {
+		transactionTemplate.executeWithoutResult(status -> {
+			em.createQuery("delete from Member").executeUpdate();
+			em.createQuery("delete from Team").executeUpdate();
+		});
+		countCache.invalidateAll();
+	}
+
+	@Test
+	public void cachedByNormalizedCondition() {
+		transactionTemplate.executeWithoutResult(status -> {
+			Team teamA = new Team("teamA");
+			em.persist(teamA);
+			for (int i = 0; i < 5; i++) {
+				em.persist(new Member("member" + i, i, teamA));
+			}
+		});
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUsername(" ");
+		Page<MemberTeamDto> result = memberRepository.searchPage(condition, PageRequest.of(0, 2));
+
+		assertThat(result.getTotalElements()).isEqualTo(5);
+		assertThat(countCache.get(new MemberSearchCondition())).isEqualTo(5);
+		assertThat(((CountedPage<MemberTeamDto>) result).isTotalApproximate()).isFalse();
+	}
+
+	@Test
+	public void approximateTotal() {
+		transactionTemplate.executeWithoutResult(status -> {
+			for (int i = 0; i < 5; i++) {
+				em.persist(new Member("member" + i, i));
+			}
+		});
+
+		assertThat(tableStatistics.estimateRowCount("member")).isEqualTo(5);
+	}
+
+	@Test
+	public void invalidatedOnSaveAndBulkUpdate() {
+		countCache.put(new MemberSearchCondition(), 100, countCache.generation());
+		transactionTemplate.executeWithoutResult(status -> memberJpaRepository.save(new Member("member1", 10)));
+		assertThat(countCache.get(new MemberSearchCondition())).isNull();
+
+		countCache.put(new MemberSearchCondition(), 100, countCache.generation());
+		transactionTemplate.executeWithoutResult(status -> memberJpaRepository.bulkAgePlus(1));
+		assertThat(countCache.get(new MemberSearchCondition())).isNull();
+	}
+
+	@Test
+	public void notInvalidatedOnRollback() {
+		countCache.put(new MemberSearchCondition(), 100, countCache.generation());
+		transactionTemplate.executeWithoutResult(status -> {
+			memberJpaRepository.save(new Member("member1", 10));
+			em.flush();
+			status.setRollbackOnly();
+		});
+		assertThat(countCache.get(new MemberSearchCondition())).isEqualTo(100);
+	}
+
+	// a write committed while counting : the count may have read the old rows
+	@Test
+	public void countStartedBeforeInvalidationNotCached() {
+		long generation = countCache.generation();
+		countCache.invalidateAll();
+		countCache.put(new MemberSearchCondition(), 100, generation);
+		assertThat(countCache.get(new MemberSearchCondition())).isNull();
+	}
+
+	// no spring transaction : invalidated before the insert runs and again after commit
+	@Test
+	public void invalidatedAfterHibernateCommit() {
+		EntityManager other = emf.createEntityManager();
+		try {
+			other.getTransaction().begin();
+			other.persist(new Member("member1", 10));
+			other.flush();
+			countCache.put(new MemberSearchCondition(), 0, countCache.generation()); // counted before the commit
+			other.getTransaction().commit();
+		} finally {
+			other.close();
+		}
+		assertThat(countCache.get(new MemberSearchCondition())).isNull();
+	}
+}
@@ -0,0 +1,63 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "member.search.jdbc=true")
+@Transactional
+class MemberJdbcSearchTest {
+
+	@Autowired EntityManager em;
+	@Autowired MemberRepository memberRepository;
+	@Autowired MemberSearchTemplates searchTemplates;
+
+	// not flushed : the jdbc search has to flush the read-write transaction itself
+	@BeforeEach
+	public void before() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member("member3", 30, teamB));
+		em.persist(new Member("member4", 40, teamB));
+		em.persist(new Member("member5", 50)); // no team
+	}
+
+	// MemberRepository.search on jdbc returns what the JPQL templates return, for every shape
+	@Test
+	public void sameResultAsTemplates() {
+		for (int shape = 0; shape < 16; shape++) {
+			MemberSearchCondition condition = new MemberSearchCondition();
+			condition.setUsername((shape & 1) != 0 ? "member3" : null);
+			condition.setTeamName((shape & 2) != 0 ? "teamB" : null);
+			condition.setAgeGoe((shape & 4) != 0 ? 20 : null);
+			condition.setAgeLoe((shape & 8) != 0 ? 40 : null);
+
+			assertThat(memberRepository.search(condition))
+					.as("shape %d", shape)
+					.isNotEmpty()
+					.containsExactlyInAnyOrderElementsOf(searchTemplates.search(condition));
+		}
+	}
+
+	@Test
+	public void sqlPerShape() {
+		assertThat(MemberJdbcSearch.sql(0))
+				.isEqualTo("select m.id, m.username, m.age, t.id, t.name from member m left join team t on t.id = m.team_id");
+		assertThat(MemberJdbcSearch.sql(2 | 4))
+				.endsWith("from member m join team t on t.id = m.team_id where t.name = ? and m.age >= ?");
+	}
+}
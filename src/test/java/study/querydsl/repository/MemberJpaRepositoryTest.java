@@ -1,10 +1,14 @@
 package study.querydsl.repository;
 
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.InvalidSearchException;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
@@ -12,9 +16,13 @@ import study.querydsl.entity.Team;
 
 import javax.persistence.EntityManager;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -24,6 +32,10 @@ class MemberJpaRepositoryTest {
 	@Autowired EntityManager em;
 
 	@Autowired MemberJpaRepository memberJpaRepository;
+	@Autowired JPAQueryFactory queryFactory;
+	@Autowired MemberSearchTemplates searchTemplates;
+
+	@Autowired TransactionAttributeSource transactionAttributeSource;
 
 	// Querydsl with Pure JPA
 	@Test
@@ -85,5 +97,99 @@ class MemberJpaRepositoryTest {
 		assertThat(result).extracting("username").containsExactly("member4");
 	}
 
+	// streaming export
+	@Test
+	public void exportTest() {
+		Team teamA = new Team("teamA");
+		em.persist(teamA);
+		for (int i = 0; i < 10; i++) {
+			em.persist(new Member("member" + i, i * 10, teamA));
+		}
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setAgeGoe(50);
+
+		List<MemberTeamDto> exported = new ArrayList<>();
+		long count = memberJpaRepository.export(condition, exported::add);
+
+		assertThat(count).isEqualTo(5);
+		assertThat(exported).extracting("username")
+				.containsExactly("member5", "member6", "member7", "member8", "member9");
+	}
+
+	// requested order, duplicates once, unknown ids left out, members already loaded without sql
+	@Test
+	public void findAllByIds() {
+		List<Member> members = persistMembers(5);
+		Member second = em.find(Member.class, members.get(1).getId());
+		Statistics statistics = statistics();
+
+		List<Member> result = memberJpaRepository.findAllByIds(Arrays.asList(
+				members.get(3).getId(), members.get(1).getId(), members.get(3).getId(), -1L, members.get(0).getId()));
+
+		assertThat(result).extracting("username").containsExactly("member3", "member1", "member0");
+		assertThat(result.get(1)).isSameAs(second);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1); // member3, member0 and the unknown id in one in-list
+	}
+
+	// where id in (...) of at most batch-size ids
+	@Test
+	public void findAllByIdsInChunks() {
+		List<Member> members = persistMembers(5);
+		MemberJpaRepository chunked = new MemberJpaRepository(em, queryFactory, searchTemplates, 1000, 2, 1000);
+		Statistics statistics = statistics();
+
+		List<Long> ids = new ArrayList<>();
+		for (int i = members.size() - 1; i >= 0; i--) {
+			ids.add(members.get(i).getId());
+		}
+		List<Member> result = chunked.findAllByIds(ids);
+
+		assertThat(result).extracting("username").containsExactly("member4", "member3", "member2", "member1", "member0");
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(3); // 2 + 2 + 1
+	}
+
+	@Test
+	public void findAllByIdsMaxIds() {
+		MemberJpaRepository limited = new MemberJpaRepository(em, queryFactory, searchTemplates, 1000, 1000, 2);
+
+		assertThat(limited.findAllByIds(Arrays.asList(1L, 2L))).isEmpty();
+		assertThatThrownBy(() -> limited.findAllByIds(Arrays.asList(1L, 2L, 3L)))
+				.isInstanceOf(InvalidSearchException.class)
+				.hasMessage("at most 2 ids: 3");
+	}
+
+	private List<Member> persistMembers(int count) {
+		List<Member> members = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Member member = new Member("member" + i, i);
+			em.persist(member);
+			members.add(member);
+		}
+		em.flush();
+		em.clear();
+		return members;
+	}
+
+	private Statistics statistics() {
+		Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		return statistics;
+	}
+
+	// read-only by default, writes opt out
+	@Test
+	public void readOnlyTransactions() throws NoSuchMethodException {
+		assertThat(readOnly(MemberJpaRepository.class.getMethod("findAll_Querydsl"))).isTrue();
+		assertThat(readOnly(MemberJpaRepository.class.getMethod("search", MemberSearchCondition.class))).isTrue();
+		assertThat(readOnly(MemberJpaRepository.class.getMethod("searchByBuilder", MemberSearchCondition.class))).isTrue();
+		assertThat(readOnly(MemberJpaRepository.class.getMethod("save", Member.class))).isFalse();
+		assertThat(readOnly(MemberJpaRepository.class.getMethod("bulkAgePlus", int.class))).isFalse();
+	}
+
+	private boolean readOnly(Method method) {
+		return transactionAttributeSource.getTransactionAttribute(method, method.getDeclaringClass()).isReadOnly();
+	}
+
 	//
 }
\ No newline at end of file
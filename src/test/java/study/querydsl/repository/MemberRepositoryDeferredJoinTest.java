@@ -0,0 +1,106 @@
+package study.querydsl.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "member.search.deferred-join=true")
+@Transactional
+class MemberRepositoryDeferredJoinTest {
+
+	@Autowired EntityManager em;
+	@Autowired MemberRepository memberRepository;
+
+	@BeforeEach
+	public void before() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamB));
+		em.persist(new Member("member3", 30, teamA));
+		em.persist(new Member("member4", 40, teamB));
+		em.persist(new Member("member5", 50)); // no team
+		em.persist(new Member("member6", 60, teamA));
+		em.persist(new Member("member7", 70, teamB));
+		em.flush();
+		em.clear();
+	}
+
+	// pages in id order, members without team included, nothing skipped or repeated
+	@Test
+	public void pagesOverAllMembers() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setAgeGoe(20);
+
+		List<MemberTeamDto> all = new ArrayList<>();
+		for (int page = 0; page < 3; page++) {
+			Page<MemberTeamDto> result = memberRepository.searchPage(condition, PageRequest.of(page, 2));
+			assertThat(result.getTotalElements()).isEqualTo(6);
+			all.addAll(result.getContent());
+		}
+
+		assertThat(all).extracting("username")
+				.containsExactly("member2", "member3", "member4", "member5", "member6", "member7");
+		assertThat(all).filteredOn(dto -> dto.getUsername().equals("member5"))
+				.extracting("teamName").containsOnlyNulls();
+		assertThat(all).filteredOn(dto -> dto.getUsername().equals("member2"))
+				.extracting("teamName").containsExactly("teamB");
+	}
+
+	// id query, row query for the ids, count query
+	@Test
+	public void teamNameFilter() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+
+		Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		Page<MemberTeamDto> result = memberRepository.searchPage(condition, PageRequest.of(0, 2));
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+		assertThat(result.getTotalElements()).isEqualTo(3);
+		assertThat(result.getContent()).extracting("username").containsExactly("member1", "member3");
+		assertThat(result.getContent()).extracting("teamName").containsOnly("teamA");
+	}
+
+	// id page sorted by team name ( left join, members without team last ), rows back in that order
+	@Test
+	public void sorted() {
+		Sort sort = Sort.by(Sort.Order.desc("teamName").nullsLast(), Sort.Order.desc("age"));
+
+		Page<MemberTeamDto> first = memberRepository.searchPage(new MemberSearchCondition(), PageRequest.of(0, 4, sort));
+		Page<MemberTeamDto> second = memberRepository.searchPage(new MemberSearchCondition(), PageRequest.of(1, 4, sort));
+
+		assertThat(first.getContent()).extracting("username").containsExactly("member7", "member4", "member2", "member6");
+		assertThat(second.getContent()).extracting("username").containsExactly("member3", "member1", "member5");
+	}
+
+	// past the last page : no row query
+	@Test
+	public void emptyPage() {
+		Page<MemberTeamDto> result = memberRepository.searchPage(new MemberSearchCondition(), PageRequest.of(10, 5));
+
+		assertThat(result.getContent()).isEmpty();
+		assertThat(result.getTotalElements()).isEqualTo(7);
+	}
+}
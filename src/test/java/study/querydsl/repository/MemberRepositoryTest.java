@@ -1,11 +1,19 @@
 package study.querydsl.repository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.CursorPage;
+import study.querydsl.dto.InvalidSearchException;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
@@ -16,12 +24,14 @@ import javax.persistence.EntityManager;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
-@SpringBootTest
+@SpringBootTest(properties = "member.search.keyset.max-size=3")
 @Transactional
 class MemberRepositoryTest {
 	@Autowired EntityManager em;
 	@Autowired MemberRepository memberRepository;
+	@Autowired MeterRegistry meterRegistry;
 	// @Autowired MemberQueryRepository memberQueryRepository;
 
 	// change into spring data jpa repository
@@ -98,6 +108,145 @@ class MemberRepositoryTest {
 				.containsExactly("member1", "member2", "member3");
 	}
 
+	// team name desc, then age desc, equal keys by id
+	@Test
+	public void searchPageSortTest() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member("member3", 30, teamB));
+		em.persist(new Member("member4", 30, teamB));
+		em.persist(new Member("member5", 20, teamB));
+
+		Sort sort = Sort.by(Sort.Order.desc("teamName"), Sort.Order.desc("age"));
+		Page<MemberTeamDto> first = memberRepository.searchPage(new MemberSearchCondition(), PageRequest.of(0, 2, sort));
+		Page<MemberTeamDto> second = memberRepository.searchPage(new MemberSearchCondition(), PageRequest.of(1, 2, sort));
+
+		assertThat(first.getContent()).extracting("username").containsExactly("member3", "member4");
+		assertThat(second.getContent()).extracting("username").containsExactly("member5", "member2");
+		assertThat(first.getTotalElements()).isEqualTo(5);
+
+		assertThatThrownBy(() -> memberRepository.searchPage(new MemberSearchCondition(), PageRequest.of(0, 2, Sort.by("team"))))
+				.isInstanceOf(InvalidSearchException.class);
+	}
+
+	@Test
+	public void searchSliceTest() {
+		Team teamA = new Team("teamA");
+		em.persist(teamA);
+
+		em.persist(new Member("member1", 40, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member("member3", 40, teamA));
+		em.persist(new Member("member4", 10, teamA));
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		Sort sort = Sort.by(Sort.Order.desc("age")); // ties by id
+
+		Slice<MemberTeamDto> first = memberRepository.searchSlice(condition, PageRequest.of(0, 3, sort));
+		assertThat(first.getContent()).extracting("username").containsExactly("member1", "member3", "member2");
+		assertThat(first.hasNext()).isTrue();
+
+		Slice<MemberTeamDto> second = memberRepository.searchSlice(condition, PageRequest.of(1, 2, sort));
+		assertThat(second.getContent()).extracting("username").containsExactly("member2", "member4");
+		assertThat(second.hasNext()).isFalse();
+
+		Slice<MemberTeamDto> all = memberRepository.searchSlice(condition, Pageable.unpaged());
+		assertThat(all.getContent()).extracting("username").containsExactly("member1", "member2", "member3", "member4");
+		assertThat(all.hasNext()).isFalse();
+	}
+
+	// keyset paging
+	@Test
+	public void searchKeysetTest() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member("member3", 20, teamB));
+		em.persist(new Member("member4", 40, teamB));
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+
+		CursorPage<MemberTeamDto> first = memberRepository.searchKeyset(condition, null, 2);
+		assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2");
+		assertThat(first.isHasNext()).isTrue();
+
+		// same age as the cursor, continue with id
+		CursorPage<MemberTeamDto> second = memberRepository.searchKeyset(condition, MemberCursor.decode(first.getNextCursor()), 2);
+		assertThat(second.getContent()).extracting("username").containsExactly("member3", "member4");
+		assertThat(second.isHasNext()).isFalse();
+		assertThat(second.getNextCursor()).isNull();
+	}
+
+	// size capped at member.search.keyset.max-size ( 3 here ) : no size + 1 overflow
+	@Test
+	public void searchKeysetMaxSize() {
+		Team teamA = new Team("teamA");
+		em.persist(teamA);
+		for (int i = 0; i < 4; i++) {
+			em.persist(new Member("member" + i, 10 * i, teamA));
+		}
+
+		CursorPage<MemberTeamDto> page = memberRepository.searchKeyset(new MemberSearchCondition(), null, Integer.MAX_VALUE);
+		assertThat(page.getContent()).extracting("username").containsExactly("member0", "member1", "member2");
+		assertThat(page.isHasNext()).isTrue();
+	}
+
+	// one statement for all conditions, rows split back per condition
+	@Test
+	public void searchBatchTest() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member("member3", 30, teamB));
+		em.persist(new Member("member4", 40, teamB));
+		em.persist(new Member("member5", 25)); // no team
+		em.flush();
+		em.clear();
+
+		MemberSearchCondition teamBCondition = new MemberSearchCondition();
+		teamBCondition.setTeamName("teamB");
+		MemberSearchCondition ageCondition = new MemberSearchCondition();
+		ageCondition.setAgeGoe(20);
+		ageCondition.setAgeLoe(30);
+		MemberSearchCondition sameAsTeamB = new MemberSearchCondition();
+		sameAsTeamB.setUsername(" ");
+		sameAsTeamB.setTeamName("teamB");
+
+		// plain jdbc : not in hibernate statistics, recorded by QueryMetrics under one shape
+		long queries = batchCount();
+		List<List<MemberTeamDto>> result = memberRepository.searchBatch(List.of(teamBCondition, ageCondition, sameAsTeamB));
+
+		assertThat(batchCount() - queries).isEqualTo(1);
+		assertThat(result).hasSize(3);
+		assertThat(result.get(0)).extracting("username").containsExactlyInAnyOrder("member3", "member4");
+		assertThat(result.get(1)).extracting("username").containsExactlyInAnyOrder("member2", "member3", "member5");
+		assertThat(result.get(2)).extracting("username").containsExactlyInAnyOrder("member3", "member4");
+
+		// a condition without filter would load every member
+		// position in the request, duplicates included
+		assertThatThrownBy(() -> memberRepository.searchBatch(List.of(teamBCondition, sameAsTeamB, new MemberSearchCondition())))
+				.isInstanceOf(InvalidSearchException.class)
+				.hasMessageContaining("condition 2 has no filter");
+	}
+
+	private long batchCount() {
+		Timer batch = meterRegistry.find("querydsl.query").tag("shape", MemberJdbcSearch.BATCH_SHAPE).timer();
+		return batch == null ? 0 : batch.count();
+	}
+
 	@Test
 	public void querydslPredicateExecutorTest() {
 		Team teamA = new Team("teamA");
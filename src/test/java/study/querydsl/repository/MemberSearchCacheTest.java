@@ -0,0 +1,82 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// committed data : result cache is bypassed inside read-write transactions
+@SpringBootTest
+class MemberSearchCacheTest {
+
+	@Autowired EntityManager em;
+	@Autowired MemberQueryRepository memberQueryRepository;
+	@Autowired MemberSearchCache searchCache;
+	@Autowired MeterRegistry meterRegistry;
+	@Autowired TransactionTemplate transactionTemplate;
+
+	@AfterEach
+	public void cleanUp() {
+		transactionTemplate.executeWithoutResult(status -> {
+			em.createQuery("delete from Member").executeUpdate();
+			em.createQuery("delete from Team").executeUpdate();
+		});
+		searchCache.invalidateAll();
+	}
+
+	@Test
+	public void cachedUntilTeamChanges() {
+		transactionTemplate.executeWithoutResult(status -> {
+			Team teamA = new Team("teamA");
+			em.persist(teamA);
+			em.persist(new Member("member1", 10, teamA));
+		});
+
+		double hits = hits();
+		MemberSearchCondition blank = new MemberSearchCondition();
+		blank.setUsername("");
+		List<MemberTeamDto> first = memberQueryRepository.search(blank);
+		List<MemberTeamDto> second = memberQueryRepository.search(new MemberSearchCondition()); // same normalized condition
+		assertThat(second).isSameAs(first);
+		assertThat(hits()).isEqualTo(hits + 1);
+
+		// bulk update on team invalidates results that joined it
+		transactionTemplate.executeWithoutResult(status ->
+				em.createQuery("update Team t set t.name = 'teamB'").executeUpdate());
+		assertThat(memberQueryRepository.search(new MemberSearchCondition()))
+				.extracting("teamName")
+				.containsExactly("teamB");
+	}
+
+	// a write committed while the search ran : its rows are answered but not kept
+	@Test
+	public void staleLoadNotCached() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+		List<MemberTeamDto> stale = Collections.singletonList(new MemberTeamDto(1L, "member1", 10, 1L, "teamA"));
+		List<MemberTeamDto> fresh = Collections.emptyList();
+
+		assertThat(searchCache.get(condition, () -> {
+			searchCache.invalidateAll();
+			return stale;
+		})).isEqualTo(stale);
+		assertThat(searchCache.get(condition, () -> fresh)).isEqualTo(fresh);
+		assertThat(searchCache.get(condition, () -> stale)).isEqualTo(fresh);
+	}
+
+	private double hits() {
+		return meterRegistry.get("cache.gets").tag("cache", "memberSearch").tag("result", "hit").functionCounter().count();
+	}
+}
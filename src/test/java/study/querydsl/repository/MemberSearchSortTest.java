@@ -0,0 +1,65 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import study.querydsl.dto.InvalidSearchException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+class MemberSearchSortTest {
+
+	MemberSearchSort warn = new MemberSearchSort("warn");
+	MemberSearchSort reject = new MemberSearchSort("reject");
+
+	@Test
+	public void unsorted() {
+		assertThat(warn.orderBy(Sort.unsorted())).containsExactly(member.id.asc());
+	}
+
+	@Test
+	public void idTiebreaker() {
+		assertThat(warn.orderBy(Sort.by(Sort.Order.asc("teamName"), Sort.Order.desc("username").nullsLast())))
+				.containsExactly(team.name.asc(), member.username.desc().nullsLast(), member.id.asc());
+
+		// already unique
+		assertThat(warn.orderBy(Sort.by(Sort.Order.desc("memberId"), Sort.Order.asc("username"))))
+				.containsExactly(member.id.desc());
+	}
+
+	@Test
+	public void notAllowed() {
+		assertThatThrownBy(() -> warn.orderBy(Sort.by("team.id")))
+				.isInstanceOf(InvalidSearchException.class)
+				.hasMessageStartingWith("unsupported sort property: team.id");
+		assertThatThrownBy(() -> warn.orderBy(Sort.by(Sort.Order.asc("username").ignoreCase())))
+				.isInstanceOf(InvalidSearchException.class);
+	}
+
+	@Test
+	public void unindexed() {
+		assertThat(warn.orderBy(Sort.by(Sort.Order.desc("age"))))
+				.containsExactly(member.age.desc(), member.id.asc());
+
+		// indexed : ( key, id ) ascending
+		assertThat(reject.orderBy(Sort.by("username")))
+				.containsExactly(member.username.asc(), member.id.asc());
+		assertThat(reject.orderBy(Sort.by("age", "id")))
+				.containsExactly(member.age.asc(), member.id.asc());
+
+		// descending, two keys, key behind a join
+		assertThatThrownBy(() -> reject.orderBy(Sort.by(Sort.Order.desc("age"))))
+				.isInstanceOf(InvalidSearchException.class);
+		assertThatThrownBy(() -> reject.orderBy(Sort.by(Sort.Order.desc("id"))))
+				.isInstanceOf(InvalidSearchException.class);
+		assertThatThrownBy(() -> reject.orderBy(Sort.by("username", "age")))
+				.isInstanceOf(InvalidSearchException.class);
+		assertThatThrownBy(() -> reject.orderBy(Sort.by("teamName")))
+				.isInstanceOf(InvalidSearchException.class);
+
+		assertThatThrownBy(() -> new MemberSearchSort("ignore"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
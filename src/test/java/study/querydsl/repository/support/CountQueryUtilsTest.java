@@ -0,0 +1,132 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class CountQueryUtilsTest {
+
+	@Autowired EntityManager em;
+
+	JPAQueryFactory queryFactory;
+
+	@BeforeEach
+	public void before() {
+		queryFactory = new JPAQueryFactory(em);
+
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member("member3", 30, teamB));
+		em.persist(new Member("member4", 40, teamB));
+		em.persist(new Member("member5", 50)); // no team
+	}
+
+	@Test
+	public void unreferencedLeftJoinRemoved() {
+		JPAQuery<Member> query = queryFactory
+				.selectFrom(member)
+				.leftJoin(member.team, team)
+				.where(member.age.goe(20))
+				.orderBy(member.username.desc());
+
+		JPAQuery<Long> countQuery = CountQueryUtils.countQuery(queryFactory, query);
+
+		assertThat(countQuery.toString())
+				.doesNotContain("join")
+				.doesNotContain("order by")
+				.contains("count(*)");
+		assertThat(countQuery.fetchOne()).isEqualTo(4);
+	}
+
+	@Test
+	public void referencedLeftJoinKept() {
+		JPAQuery<Member> query = queryFactory
+				.selectFrom(member)
+				.leftJoin(member.team, team)
+				.where(team.name.eq("teamB"));
+
+		JPAQuery<Long> countQuery = CountQueryUtils.countQuery(queryFactory, query);
+
+		assertThat(countQuery.toString()).contains("left join");
+		assertThat(countQuery.fetchOne()).isEqualTo(2);
+	}
+
+	@Test
+	public void innerAndToManyJoinsKept() {
+		QMember teamMember = new QMember("teamMember");
+
+		// inner join filters out member5
+		JPAQuery<Member> inner = queryFactory
+				.selectFrom(member)
+				.join(member.team, team);
+		assertThat(CountQueryUtils.countQuery(queryFactory, inner).fetchOne()).isEqualTo(4);
+
+		// a member row for every member of the same team
+		JPAQuery<Member> toMany = queryFactory
+				.selectFrom(member)
+				.leftJoin(member.team, team)
+				.leftJoin(team.members, teamMember);
+		assertThat(CountQueryUtils.countQuery(queryFactory, toMany).fetchOne())
+				.isEqualTo(query(toMany).size());
+	}
+
+	@Test
+	public void fetchJoinRemoved() {
+		JPAQuery<Member> query = queryFactory
+				.selectFrom(member)
+				.leftJoin(member.team, team).fetchJoin();
+
+		assertThat(CountQueryUtils.countQuery(queryFactory, query).fetchOne()).isEqualTo(5);
+	}
+
+	@Test
+	public void distinctCount() {
+		em.persist(new Member("member6", 50));
+
+		JPAQuery<Integer> query = queryFactory
+				.select(member.age)
+				.distinct()
+				.from(member);
+
+		assertThat(CountQueryUtils.countQuery(queryFactory, query).fetchOne())
+				.isEqualTo(5);
+	}
+
+	@Test
+	public void groupByNotSupported() {
+		JPAQuery<String> query = queryFactory
+				.select(team.name)
+				.from(member)
+				.join(member.team, team)
+				.groupBy(team.name);
+
+		assertThatThrownBy(() -> CountQueryUtils.countQuery(queryFactory, query))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static <T> List<T> query(JPAQuery<T> query) {
+		return query.clone().fetch();
+	}
+}
@@ -0,0 +1,77 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.UserDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class FastProjectionsTest {
+
+	@Autowired EntityManager em;
+	@Autowired JPAQueryFactory queryFactory;
+
+	@BeforeEach
+	public void before() {
+		Team teamA = new Team("teamA");
+		em.persist(teamA);
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member("member3", 30));
+	}
+
+	// same rows as the Projections.* they replace
+	@Test
+	public void sameAsProjections() {
+		assertSame(Projections.bean(MemberDto.class, member.username, member.age),
+				FastProjections.bean(MemberDto.class, member.username, member.age));
+		assertSame(Projections.fields(MemberDto.class, member.username, member.age),
+				FastProjections.fields(MemberDto.class, member.username, member.age));
+		assertSame(Projections.constructor(MemberDto.class, member.username, member.age),
+				FastProjections.constructor(MemberDto.class, member.username, member.age));
+	}
+
+	// alias and subquery bindings, as in QuerydslBasicTest.findUserDtoByField2
+	@Test
+	public void aliases() {
+		QMember memberSub = new QMember("memberSub");
+
+		List<UserDto> result = queryFactory
+				.select(FastProjections.fields(UserDto.class,
+						member.username.as("name"),
+						ExpressionUtils.as(JPAExpressions
+								.select(memberSub.age.max())
+								.from(memberSub), "age1")))
+				.from(member)
+				.orderBy(member.username.asc())
+				.fetch();
+
+		assertThat(result).extracting("name").containsExactly("member1", "member2", "member3");
+		assertThat(result).extracting("age1").containsOnly(30);
+	}
+
+	private <T> void assertSame(FactoryExpression<T> expected, FactoryExpression<T> actual) {
+		List<T> result = queryFactory.select(actual).from(member).orderBy(member.username.asc()).fetch();
+		assertThat(result)
+				.hasSize(3)
+				.isEqualTo(queryFactory.select(expected).from(member).orderBy(member.username.asc()).fetch());
+	}
+}
@@ -0,0 +1,118 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// test profile : action fail, max 20 statements / 10 lazy loads
+// statements are counted on connections handed out inside the scope : each test opens its transaction after begin
+@SpringBootTest
+class LazyLoadDetectorTest {
+
+	@Autowired EntityManager em;
+	@Autowired JdbcTemplate jdbcTemplate;
+	@Autowired TransactionTemplate transactionTemplate;
+	@Autowired LazyLoadDetector lazyLoadDetector;
+
+	@BeforeEach
+	public void before() {
+		transactionTemplate.executeWithoutResult(status -> {
+			for (int i = 0; i < 12; i++) {
+				Team team = new Team("team" + i);
+				em.persist(team);
+				em.persist(new Member("member" + i, i, team));
+			}
+		});
+		em.getEntityManagerFactory().getCache().evictAll(); // teams from the second level cache issue no SQL
+	}
+
+	@AfterEach
+	public void after() {
+		lazyLoadDetector.end();
+		transactionTemplate.executeWithoutResult(status -> {
+			em.createQuery("delete from Member").executeUpdate();
+			em.createQuery("delete from Team").executeUpdate();
+		});
+	}
+
+	// batch fetching : the first proxy loads every team, the others are found in the persistence context
+	@Test
+	public void lazyTeamPerMember() {
+		lazyLoadDetector.begin("test");
+		transactionTemplate.executeWithoutResult(status -> {
+			List<Member> members = em.createQuery("select m from Member m", Member.class).getResultList();
+			members.forEach(member -> member.getTeam().getName());
+		});
+
+		assertThat(lazyLoadDetector.end()).isNull();
+	}
+
+	// one member per persistence context : every team proxy is a statement of its own
+	@Test
+	public void lazyTeamPerMemberWithoutBatch() {
+		List<Long> memberIds = transactionTemplate.execute(status ->
+				em.createQuery("select m.id from Member m", Long.class).getResultList());
+		lazyLoadDetector.begin("test");
+
+		// 2 statements per member : over max-statements at the 11th member's find, after 10 lazy loads
+		assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> memberIds.forEach(id -> {
+			em.clear();
+			em.find(Member.class, id).getTeam().getName();
+		})))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("21 statements (max 20), 10 lazy loads (max 10)")
+				.hasMessageContaining("Member.team at study.querydsl.repository.support.LazyLoadDetectorTest")
+				.hasMessageContaining("x10");
+	}
+
+	// one team per persistence context : batch fetching has no other collection to load along
+	@Test
+	public void lazyMembersPerTeam() {
+		List<Long> teamIds = transactionTemplate.execute(status ->
+				em.createQuery("select t.id from Team t", Long.class).getResultList());
+		lazyLoadDetector.begin("test");
+
+		assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> teamIds.forEach(id -> {
+			em.clear();
+			em.find(Team.class, id).getMembers().size();
+		})))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("Team.members at");
+	}
+
+	@Test
+	public void fetchJoinWithinLimits() {
+		lazyLoadDetector.begin("test");
+		transactionTemplate.executeWithoutResult(status ->
+				em.createQuery("select m from Member m join fetch m.team", Member.class).getResultList()
+						.forEach(member -> member.getTeam().getName()));
+
+		assertThat(lazyLoadDetector.end()).isNull();
+	}
+
+	// plain jdbc ( MemberJdbcSearch ) counts against the same budget
+	@Test
+	public void jdbcStatementsCounted() {
+		lazyLoadDetector.begin("test");
+
+		assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+			for (int i = 0; i < 21; i++) {
+				jdbcTemplate.queryForObject("select count(*) from member where age >= ?", Long.class, i);
+			}
+		}))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("21 statements (max 20)");
+	}
+}
@@ -0,0 +1,86 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class QueryMetricsTest {
+
+	@Autowired EntityManager em;
+	@Autowired JPAQueryFactory queryFactory;
+	@Autowired MeterRegistry meterRegistry;
+	@Autowired QueryMetricsEndpoint queryMetricsEndpoint;
+
+	@BeforeEach
+	public void before() {
+		Team teamA = new Team("teamA");
+		em.persist(teamA);
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member("member3", 30, teamA));
+	}
+
+	@Test
+	public void normalize() {
+		assertThat(QueryMetrics.normalize("select member1\nfrom Member member1\n"
+				+ "where member1.username = 'it''s' and member1.age > 10 and member1.id = ?1 and locate(member1.username, :name) > 0"))
+				.isEqualTo("select member1 from Member member1 "
+						+ "where member1.username = ? and member1.age > ? and member1.id = ?1 and locate(member1.username, :name) > ?");
+	}
+
+	@Test
+	public void latencyAndRowsPerShape() {
+		for (int age = 0; age < 3; age++) {
+			queryFactory.selectFrom(member).where(member.age.gt(age * 10)).fetch();
+		}
+		queryFactory.selectFrom(member).where(member.username.eq("member1")).fetchOne();
+
+		String shape = "select member1 from Member member1 where member1.age > ?1";
+		Timer latency = meterRegistry.get("querydsl.query").tag("shape", shape).timer();
+		assertThat(latency.count()).isEqualTo(3);
+		assertThat(meterRegistry.get("querydsl.query.rows").tag("shape", shape).summary().totalAmount())
+				.isEqualTo(3 + 2 + 1);
+	}
+
+	@Test
+	public void literalsShareShape() {
+		queryFactory.select(Expressions.numberTemplate(Integer.class, "1"), member.age).from(member).fetch();
+		queryFactory.select(Expressions.numberTemplate(Integer.class, "2"), member.age).from(member).fetch();
+
+		assertThat(meterRegistry.get("querydsl.query")
+				.tag("shape", "select ?, member1.age from Member member1").timer().count())
+				.isEqualTo(2);
+	}
+
+	@Test
+	public void endpoint() {
+		queryFactory.selectFrom(member).where(member.username.startsWith("member")).fetch();
+
+		List<QueryMetricsEndpoint.QueryStats> queries = queryMetricsEndpoint.queries();
+		assertThat(queries).isSortedAccordingTo((a, b) -> Double.compare(b.getTotalMs(), a.getTotalMs()));
+		assertThat(queries)
+				.filteredOn(stats -> stats.getShape().contains("like"))
+				.singleElement()
+				.satisfies(stats -> {
+					assertThat(stats.getCalls()).isEqualTo(1);
+					assertThat(stats.getMaxRows()).isEqualTo(3);
+					assertThat(stats.getPercentilesMs()).containsOnlyKeys("p50", "p95", "p99");
+				});
+	}
+}
@@ -0,0 +1,99 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberSearchTemplates;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class QueryTemplateTest {
+
+	@Autowired EntityManager em;
+	@Autowired MemberSearchTemplates searchTemplates;
+	@Autowired MemberJpaRepository memberJpaRepository;
+
+	@BeforeEach
+	public void before() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member("member3", 30, teamB));
+		em.persist(new Member("member4", 40, teamB));
+		em.persist(new Member("member5", 50)); // no team
+	}
+
+	// every shape returns what the querydsl BooleanBuilder search returns
+	@Test
+	public void sixteenShapes() {
+		for (int shape = 0; shape < 16; shape++) {
+			MemberSearchCondition condition = new MemberSearchCondition();
+			condition.setUsername((shape & 1) != 0 ? "member3" : "");
+			condition.setTeamName((shape & 2) != 0 ? "teamB" : null);
+			condition.setAgeGoe((shape & 4) != 0 ? 20 : null);
+			condition.setAgeLoe((shape & 8) != 0 ? 40 : null);
+
+			assertThat(searchTemplates.search(condition))
+					.as("shape %d", shape)
+					.usingRecursiveFieldByFieldElementComparator()
+					.containsExactlyInAnyOrderElementsOf(memberJpaRepository.searchByBuilder(condition));
+		}
+	}
+
+	@Test
+	public void compiledOncePerShape() {
+		MemberSearchCondition first = new MemberSearchCondition();
+		first.setAgeGoe(20);
+		MemberSearchCondition second = new MemberSearchCondition();
+		second.setAgeGoe(40);
+
+		assertThat(searchTemplates.template(second)).isSameAs(searchTemplates.template(first));
+		assertThat(searchTemplates.template(first).getJpql()).contains("member1.age >= ?1");
+	}
+
+	@Test
+	public void constantsKeptParamsBound() {
+		Param<Integer> age = new Param<>(Integer.class, "age");
+		JPAQuery<String> query = new JPAQuery<Void>()
+				.select(member.username)
+				.from(member)
+				.where(member.username.startsWith("member"), member.age.gt(age), member.age.lt(50), member.age.ne(0));
+
+		QueryTemplate<String> template = QueryTemplate.compile(JPAProvider.getTemplates(em), query, age);
+
+		// integer constants stay constants : 50 and 0 aren't value indexes
+		List<String> result = template.fetch(em, 20);
+		assertThat(result).containsExactlyInAnyOrder("member3", "member4");
+	}
+
+	@Test
+	public void paramWithoutValueOrLimit() {
+		Param<Integer> age = new Param<>(Integer.class, "age");
+		JPAQuery<Member> query = new JPAQuery<Void>().select(member).from(member).where(member.age.gt(age));
+
+		assertThatThrownBy(() -> QueryTemplate.compile(JPAProvider.getTemplates(em), query))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> QueryTemplate.compile(JPAProvider.getTemplates(em), query.limit(10), age))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,95 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+	SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	SingleFlight<String, String> singleFlight = new SingleFlight<>(meterRegistry, "test");
+	ExecutorService executor = Executors.newFixedThreadPool(8);
+
+	@AfterEach
+	public void after() {
+		executor.shutdownNow();
+	}
+
+	// 8 callers while the first one runs : one execution, everyone gets its result
+	@Test
+	public void concurrentCallsShareOneExecution() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger executions = new AtomicInteger();
+
+		List<Future<String>> results = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			results.add(executor.submit(() -> singleFlight.execute("key", () -> {
+				executions.incrementAndGet();
+				await(release);
+				return "result";
+			})));
+		}
+		waitUntilAllCalled(8);
+		release.countDown();
+
+		for (Future<String> result : results) {
+			assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+		}
+		assertThat(executions).hasValue(1);
+		assertThat(count("executed")).isEqualTo(1);
+		assertThat(count("shared")).isEqualTo(7);
+
+		// nothing kept : the next call runs again
+		assertThat(singleFlight.execute("key", () -> "again")).isEqualTo("again");
+	}
+
+	@Test
+	public void exceptionIsShared() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		List<Future<String>> results = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			results.add(executor.submit(() -> singleFlight.execute("key", () -> {
+				await(release);
+				throw new IllegalStateException("failed");
+			})));
+		}
+		waitUntilAllCalled(2);
+		release.countDown();
+
+		for (Future<String> result : results) {
+			assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS)).hasRootCauseInstanceOf(IllegalStateException.class);
+		}
+	}
+
+	private double count(String result) {
+		return meterRegistry.get("singleflight.calls").tag("name", "test").tag("result", result).counter().count();
+	}
+
+	// every caller has either started the execution or is waiting for it
+	private void waitUntilAllCalled(int callers) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (count("executed") + count("shared") < callers && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
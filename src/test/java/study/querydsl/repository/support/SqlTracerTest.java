@@ -0,0 +1,70 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class SqlTracerTest {
+
+	DriverManagerDataSource h2 = new DriverManagerDataSource("jdbc:h2:mem:sqltrace;DB_CLOSE_DELAY=-1", "sa", "");
+	SqlTracer tracer;
+
+	@AfterEach
+	public void after() {
+		new JdbcTemplate(h2).execute("drop all objects");
+		tracer.destroy();
+	}
+
+	@Test
+	public void sampledWithParameters() {
+		tracer = new SqlTracer(SqlTracer.Mode.SAMPLED, 2, Duration.ZERO, 10);
+		JdbcTemplate jdbc = new JdbcTemplate(SqlTracingDataSource.wrap(h2, tracer));
+
+		jdbc.execute("create table t (id bigint, name varchar(10))");                // 1st : not sampled
+		jdbc.update("insert into t values (?, ?)", 1L, "a");                       // 2nd
+		jdbc.update("insert into t values (?, ?)", 2L, null);                      // 3rd : not sampled
+		jdbc.queryForObject("select count(*) from t where id > ?", Long.class, 0L); // 4th
+
+		assertThat(tracer.recent())
+				.extracting(SqlTrace::getSql, SqlTrace::getParams)
+				.containsExactly(
+						tuple("insert into t values (?, ?)", Arrays.asList("1", "'a'")),
+						tuple("select count(*) from t where id > ?", Arrays.asList("0")));
+	}
+
+	@Test
+	public void slowOnly() {
+		tracer = new SqlTracer(SqlTracer.Mode.SLOW, 1, Duration.ofHours(1), 10);
+		JdbcTemplate jdbc = new JdbcTemplate(SqlTracingDataSource.wrap(h2, tracer));
+
+		jdbc.execute("create table t (id bigint)");
+		jdbc.batchUpdate("insert into t values (?)", Arrays.asList(new Object[]{1L}, new Object[]{2L}));
+
+		assertThat(tracer.recent()).isEmpty();
+	}
+
+	@Test
+	public void ringBufferKeepsLatest() {
+		tracer = new SqlTracer(SqlTracer.Mode.SLOW, 1, Duration.ZERO, 3);
+		DataSource dataSource = SqlTracingDataSource.wrap(h2, tracer);
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+		jdbc.execute("create table t (id bigint)");
+		jdbc.batchUpdate("insert into t values (?)", Arrays.asList(new Object[]{1L}, new Object[]{2L}));
+		for (long id = 3; id <= 5; id++) {
+			jdbc.update("insert into t values (?)", id);
+		}
+
+		assertThat(tracer.recent())
+				.extracting(trace -> trace.getParams().get(0))
+				.containsExactly("3", "4", "5");
+	}
+}